@@ -36,6 +36,7 @@ public class ApiClient {
                     // 2. 创建 OkHttpClient 并添加拦截器
                     OkHttpClient okHttpClient = new OkHttpClient.Builder()
                             .addInterceptor(loggingInterceptor)
+                            .cache(MyApplication.getHttpCache()) // 带 ETag 的响应会被缓存并自动重新验证
                             .build();
 
                     // 3. 配置 Gson，使其能够处理可能不规范的 JSON 格式
@@ -1,5 +1,8 @@
 package com.archive.app;
 
+import com.archive.app.dto.BootstrapResponse;
+import com.archive.app.dto.CursorPage;
+import com.archive.app.dto.LedgerEntry;
 import com.archive.app.dto.LoginRequest;
 import com.archive.app.dto.ScanRequest;
 import com.archive.app.dto.ScanResponse;
@@ -24,6 +27,7 @@ import retrofit2.http.PATCH;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
 
 /**
  * Retrofit API Service 接口
@@ -31,6 +35,11 @@ import retrofit2.http.Path;
  */
 public interface ApiService {
 
+    //=========================== 0. 启动数据 (Bootstrap) ===========================
+    // since 为上次收到的 version，为 null 时 Retrofit 不发送该参数，服务器返回全部数据
+    @GET("bootstrap")
+    Call<BootstrapResponse> bootstrap(@Query("since") String since);
+
     //=========================== 1. 部门 (Departments) ===========================
     @POST("departments")
     Call<Departments> createDepartment(@Body Departments department);
@@ -95,6 +104,10 @@ public interface ApiService {
     @GET("products/list")
     Call<List<Products>> listProducts();
 
+    // SKU 输入自动补全
+    @GET("products/suggest")
+    Call<List<String>> suggestSkus(@Query("prefix") String prefix, @Query("limit") int limit);
+
     @PUT("products")
     Call<Products> updateProduct(@Body Products product);
 
@@ -151,6 +164,10 @@ public interface ApiService {
     @GET("inventory/sku/{sku}")
     Call<List<Inventory>> getInventoryByProductSku(@Path("sku") String sku);
 
+    // 批次号输入自动补全
+    @GET("inventory/suggest")
+    Call<List<String>> suggestBatchCodes(@Query("prefix") String prefix, @Query("limit") int limit);
+
 
     @GET("inventory/batch/list")
     Call<List<Inventory>> listAllBatchCodes();
@@ -180,8 +197,36 @@ public interface ApiService {
     @GET("transaction-logs/list")
     Call<List<TransactionLogs>> listTransactionLogs();
 
+    /**
+     * 某个库存批次的流水，最新的在前，游标分页
+     * @param cursor 上一页返回的 nextCursor，第一页传 null
+     */
     @GET("transaction-logs/inventory/{inventoryId}")
-    Call<List<TransactionLogs>> listLogsByInventoryId(@Path("inventoryId") int inventoryId);
+    Call<CursorPage<TransactionLogs>> listLogsByInventoryId(@Path("inventoryId") int inventoryId,
+                                                            @Query("cursor") String cursor,
+                                                            @Query("size") Integer size);
+
+    /**
+     * 同上，只返回 id、变动数量、结存和时间，适合在手持设备上显示批次的结存变化
+     */
+    @GET("transaction-logs/inventory/{inventoryId}?compact=true")
+    Call<CursorPage<LedgerEntry>> listLedgerByInventoryId(@Path("inventoryId") int inventoryId,
+                                                          @Query("cursor") String cursor,
+                                                          @Query("size") Integer size);
+
+    /**
+     * 按条件分页查询异动日志 (服务端过滤)，最新的在前；参数为 null 时不作为条件
+     * @param from 起始时间，格式 yyyy-MM-dd'T'HH:mm:ss
+     * @param cursor 上一页返回的 nextCursor，第一页传 null
+     * @param fields 只返回的属性 (逗号分隔)，null 表示完整对象
+     */
+    @GET("transaction-logs/search")
+    Call<CursorPage<TransactionLogs>> searchTransactionLogs(@Query("type") String type,
+                                                            @Query("userId") Integer userId,
+                                                            @Query("from") String from,
+                                                            @Query("cursor") String cursor,
+                                                            @Query("size") Integer size,
+                                                            @Query("fields") String fields);
 
     // 注意: 更新和删除日志在实际业务中非常罕见，可能需要严格的权限控制
     @PUT("transaction-logs")
@@ -203,10 +248,10 @@ public interface ApiService {
     //=========================== 8. 扫码操作 (Scan Operations) ===========================
     // 这些是复合操作，后端会处理库存更新和日志记录
     @POST("scan/inbound")
-    Call<Void> scanInbound(@Body ScanRequest scanRequest);
+    Call<ScanResponse> scanInbound(@Body ScanRequest scanRequest);
 
     @POST("scan/outbound")
-    Call<Void> scanOutbound(@Body ScanRequest scanRequest);
+    Call<ScanResponse> scanOutbound(@Body ScanRequest scanRequest);
 
 
 
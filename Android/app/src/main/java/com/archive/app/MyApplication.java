@@ -5,11 +5,17 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.archive.app.dto.BootstrapResponse;
 import com.archive.app.model.Departments;
+import com.archive.app.model.Products;
+import com.archive.app.model.Roles;
 import com.archive.app.model.Users;
+import com.google.gson.Gson;
 
+import java.io.File;
 import java.util.List;
 
+import okhttp3.Cache;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -23,30 +29,93 @@ public class MyApplication extends Application {
     private static Users currentUser;
     private static SharedPreferences sharedPreferences;
     public static List<Departments> departments;
+    public static List<Roles> roles;
+    public static List<Products> products;
+
+    // 上次 /bootstrap 的结果单独保存，退出登录清空用户信息时不受影响
+    private static SharedPreferences bootstrapPrefs;
+    private static BootstrapResponse bootstrapData;
+    private static final Gson gson = new Gson();
+
+    // HTTP 缓存：保存列表接口的响应和 ETag，再次请求时带上 If-None-Match，数据未变时服务器只返回 304
+    private static Cache httpCache;
 
     @Override
     public void onCreate() {
         super.onCreate();
         sharedPreferences = getSharedPreferences("warehouse_prefs", Context.MODE_PRIVATE);
+        httpCache = new Cache(new File(getCacheDir(), "http"), 10L * 1024 * 1024);
         loadUserFromPrefs();
-        ApiClient.getApiService().listDepartments().enqueue(new Callback<List<Departments>>() {
+        bootstrapPrefs = getSharedPreferences("bootstrap_cache", Context.MODE_PRIVATE);
+        loadBootstrapFromPrefs();
+        refreshBootstrap();
+    }
 
-            @Override
-            public void onResponse(Call<List<Departments>> call, Response<List<Departments>> response) {
-                if (response.isSuccessful()){
-                    departments = response.body();
-                    Log.e("departments: ", response.body().toString());
+    /**
+     * 一次请求获取部门、角色和产品目录；带上次的版本号时服务器只返回有变化的部分。
+     * 重新连上服务器时可以再次调用，数据没有变化时响应只有一个版本号。
+     */
+    public static void refreshBootstrap() {
+        String since = bootstrapData != null ? bootstrapData.getVersion() : null;
+        ApiClient.getApiService().bootstrap(since).enqueue(new Callback<BootstrapResponse>() {
 
+            @Override
+            public void onResponse(Call<BootstrapResponse> call, Response<BootstrapResponse> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    mergeBootstrap(response.body());
                 }
             }
 
             @Override
-            public void onFailure(Call<List<Departments>> call, Throwable t) {
-
+            public void onFailure(Call<BootstrapResponse> call, Throwable t) {
+                Log.e("MyApplication", "加载启动数据失败，继续使用本地保存的数据", t);
             }
         });
     }
 
+    private static void mergeBootstrap(BootstrapResponse update) {
+        BootstrapResponse merged = bootstrapData != null ? bootstrapData : new BootstrapResponse();
+        merged.setVersion(update.getVersion());
+        if (update.getDepartments() != null) {
+            merged.setDepartments(update.getDepartments());
+        }
+        if (update.getRoles() != null) {
+            merged.setRoles(update.getRoles());
+        }
+        if (update.getProducts() != null) {
+            merged.setProducts(update.getProducts());
+        }
+        applyBootstrap(merged);
+        bootstrapPrefs.edit().putString("data", gson.toJson(merged)).apply();
+    }
+
+    private static void loadBootstrapFromPrefs() {
+        String json = bootstrapPrefs.getString("data", null);
+        if (json == null) {
+            return;
+        }
+        try {
+            applyBootstrap(gson.fromJson(json, BootstrapResponse.class));
+        } catch (RuntimeException e) {
+            // 保存的格式无法解析 (例如升级了模型类)，丢弃后重新全量获取
+            bootstrapPrefs.edit().clear().apply();
+        }
+    }
+
+    private static void applyBootstrap(BootstrapResponse data) {
+        bootstrapData = data;
+        departments = data.getDepartments();
+        roles = data.getRoles();
+        products = data.getProducts();
+    }
+
+    /**
+     * ApiClient 和 RetrofitClient 共用同一个缓存目录，OkHttp 要求同一目录只能有一个 Cache 实例
+     */
+    public static Cache getHttpCache() {
+        return httpCache;
+    }
+
     public static Users getCurrentUser() {
         return currentUser;
     }
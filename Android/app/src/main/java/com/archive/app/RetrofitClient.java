@@ -25,6 +25,7 @@ public class RetrofitClient {
 
             OkHttpClient okHttpClient = new OkHttpClient.Builder()
                     .addInterceptor(loggingInterceptor)
+                    .cache(MyApplication.getHttpCache()) // Revalidate cached list responses with If-None-Match
                     .connectTimeout(30, TimeUnit.SECONDS) // Connection timeout
                     .readTimeout(30, TimeUnit.SECONDS)    // Read timeout
                     .writeTimeout(30, TimeUnit.SECONDS)   // Write timeout
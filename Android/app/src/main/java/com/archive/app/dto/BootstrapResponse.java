@@ -0,0 +1,60 @@
+package com.archive.app.dto;
+
+import com.archive.app.model.Departments;
+import com.archive.app.model.Products;
+import com.archive.app.model.Roles;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * GET /bootstrap 的响应：启动时需要的部门、角色和产品目录
+ * 带 since 请求时，没有变化的部分为 null，继续使用本地保存的数据
+ */
+public class BootstrapResponse {
+
+    @SerializedName("version") // 下次请求时作为 since 传回
+    private String version;
+
+    @SerializedName("departments")
+    private List<Departments> departments;
+
+    @SerializedName("roles")
+    private List<Roles> roles;
+
+    @SerializedName("products")
+    private List<Products> products;
+
+    // Getters and Setters
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public List<Departments> getDepartments() {
+        return departments;
+    }
+
+    public void setDepartments(List<Departments> departments) {
+        this.departments = departments;
+    }
+
+    public List<Roles> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<Roles> roles) {
+        this.roles = roles;
+    }
+
+    public List<Products> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<Products> products) {
+        this.products = products;
+    }
+}
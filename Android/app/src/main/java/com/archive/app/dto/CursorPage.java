@@ -0,0 +1,47 @@
+package com.archive.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务端游标分页的一页结果
+ * nextCursor 作为下一次请求的 cursor 参数传回，为 null 表示已经是最后一页
+ */
+public class CursorPage<T> {
+
+    @SerializedName("items")
+    private List<T> items = new ArrayList<>();
+
+    @SerializedName("nextCursor")
+    private String nextCursor;
+
+    @SerializedName("size")
+    private int size;
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
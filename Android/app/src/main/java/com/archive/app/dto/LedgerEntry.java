@@ -0,0 +1,54 @@
+package com.archive.app.dto;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * 批次流水的精简行 (transaction-logs/inventory/{id}?compact=true)
+ */
+public class LedgerEntry {
+
+    @SerializedName("id")
+    private long id;
+
+    @SerializedName("delta") // 库存变化数量 (+入库, -出库)
+    private int delta;
+
+    @SerializedName("balance") // 本次异动后的批次结存
+    private int balance;
+
+    @SerializedName("createdAt")
+    private String createdAt;
+
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+
+    public int getBalance() {
+        return balance;
+    }
+
+    public void setBalance(int balance) {
+        this.balance = balance;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -14,6 +14,15 @@ public class ScanResponse {
     @SerializedName("product") // Match the JSON key from the backend
     private Products product;
 
+    @SerializedName("transactionLogId") // 仅扫码接口返回
+    private Long transactionLogId;
+
+    @SerializedName("status") // OK / DUPLICATE / ACCEPTED
+    private String status;
+
+    @SerializedName("ticketId") // 合并扫码受理后的凭证ID
+    private String ticketId;
+
     // Getters and Setters
     public Inventory getInventory() {
         return inventory;
@@ -30,4 +39,28 @@ public class ScanResponse {
     public void setProduct(Products product) {
         this.product = product;
     }
+
+    public Long getTransactionLogId() {
+        return transactionLogId;
+    }
+
+    public void setTransactionLogId(Long transactionLogId) {
+        this.transactionLogId = transactionLogId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
 }
@@ -0,0 +1,106 @@
+package com.archive.app.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 输入时向服务器请求自动补全候选 (例如 /inventory/suggest、/products/suggest)，
+ * 代替在页面打开时下载完整的列表。输入停顿 200ms 后才发请求，过期的响应直接丢弃。
+ */
+public class SuggestWatcher implements TextWatcher {
+
+    /**
+     * 一个候选来源，例如 prefix -> apiService.suggestBatchCodes(prefix, 10)
+     */
+    public interface Source {
+        Call<List<String>> suggest(String prefix);
+    }
+
+    private static final long DEBOUNCE_MS = 200;
+
+    private final AutoCompleteTextView view;
+    private final List<Source> sources;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Runnable pending;
+    private int requestSeq;
+
+    private SuggestWatcher(AutoCompleteTextView view, List<Source> sources) {
+        this.view = view;
+        this.sources = sources;
+    }
+
+    public static void attach(AutoCompleteTextView view, Source... sources) {
+        view.setThreshold(1);
+        view.addTextChangedListener(new SuggestWatcher(view, Arrays.asList(sources)));
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        if (pending != null) {
+            handler.removeCallbacks(pending);
+        }
+        String prefix = s.toString().trim();
+        if (prefix.isEmpty()) {
+            return;
+        }
+        pending = () -> fetch(prefix);
+        handler.postDelayed(pending, DEBOUNCE_MS);
+    }
+
+    private void fetch(String prefix) {
+        int seq = ++requestSeq;
+        Set<String> merged = new LinkedHashSet<>();
+        int[] remaining = {sources.size()};
+        for (Source source : sources) {
+            source.suggest(prefix).enqueue(new Callback<List<String>>() {
+                @Override
+                public void onResponse(Call<List<String>> call, Response<List<String>> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        merged.addAll(response.body());
+                    }
+                    done();
+                }
+
+                @Override
+                public void onFailure(Call<List<String>> call, Throwable t) {
+                    done();
+                }
+
+                private void done() {
+                    // 只展示最后一次输入对应的结果
+                    if (--remaining[0] > 0 || seq != requestSeq) {
+                        return;
+                    }
+                    ArrayAdapter<String> adapter = new ArrayAdapter<>(view.getContext(),
+                            android.R.layout.simple_dropdown_item_1line, new ArrayList<>(merged));
+                    view.setAdapter(adapter);
+                    if (view.hasFocus() && !merged.isEmpty()) {
+                        view.showDropDown();
+                    }
+                }
+            });
+        }
+    }
+}
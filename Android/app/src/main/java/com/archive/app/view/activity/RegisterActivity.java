@@ -23,6 +23,7 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.archive.app.ApiClient;
 import com.archive.app.ApiService;
+import com.archive.app.MyApplication;
 import com.archive.app.R;
 import com.archive.app.model.Departments;
 import com.archive.app.model.Users;
@@ -261,6 +262,12 @@ public class RegisterActivity extends AppCompatActivity {
     }
 
     private void fetchDepartments() {
+        // 启动时 /bootstrap 已经取到部门列表的话直接使用
+        if (MyApplication.departments != null && !MyApplication.departments.isEmpty()) {
+            departmentList = MyApplication.departments;
+            populateDepartmentDropdown();
+            return;
+        }
         ApiClient.getApiService().listDepartments().enqueue(new Callback<List<Departments>>() {
             @Override
             public void onResponse(Call<List<Departments>> call, Response<List<Departments>> response) {
@@ -174,11 +174,12 @@ public class ScanActivity extends AppCompatActivity {
     private void performInbound(String batchCode) {
         binding.progressBar.setVisibility(View.VISIBLE);
         ScanRequest request = new ScanRequest(batchCode, MyApplication.getCurrentUser().getId());
-        ApiClient.getApiService().scanInbound(request).enqueue(new Callback<Void>() {
+        ApiClient.getApiService().scanInbound(request).enqueue(new Callback<ScanResponse>() {
             @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
+            public void onResponse(Call<ScanResponse> call, Response<ScanResponse> response) {
                 if (response.isSuccessful()) {
-                    Toast.makeText(ScanActivity.this, "入库成功", Toast.LENGTH_SHORT).show();
+                    // 响应中已带有更新后的库存，不需要再查询一次批次详情
+                    Toast.makeText(ScanActivity.this, successMessage("入库成功", response.body()), Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK); // 设置成功结果
                     finish();
                 } else {
@@ -186,7 +187,7 @@ public class ScanActivity extends AppCompatActivity {
                 }
             }
             @Override
-            public void onFailure(Call<Void> call, Throwable t) {
+            public void onFailure(Call<ScanResponse> call, Throwable t) {
                 handleApiError("入库失败，网络错误");
             }
         });
@@ -198,11 +199,12 @@ public class ScanActivity extends AppCompatActivity {
     private void performOutbound(String batchCode) {
         binding.progressBar.setVisibility(View.VISIBLE);
         ScanRequest request = new ScanRequest(batchCode, MyApplication.getCurrentUser().getId());
-        ApiClient.getApiService().scanOutbound(request).enqueue(new Callback<Void>() {
+        ApiClient.getApiService().scanOutbound(request).enqueue(new Callback<ScanResponse>() {
             @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
+            public void onResponse(Call<ScanResponse> call, Response<ScanResponse> response) {
                 if (response.isSuccessful()) {
-                    Toast.makeText(ScanActivity.this, "出库成功", Toast.LENGTH_SHORT).show();
+                    // 响应中已带有更新后的库存，不需要再查询一次批次详情
+                    Toast.makeText(ScanActivity.this, successMessage("出库成功", response.body()), Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK); // 设置成功结果
                     finish();
                 } else {
@@ -210,12 +212,19 @@ public class ScanActivity extends AppCompatActivity {
                 }
             }
             @Override
-            public void onFailure(Call<Void> call, Throwable t) {
+            public void onFailure(Call<ScanResponse> call, Throwable t) {
                 handleApiError("出库失败，网络错误");
             }
         });
     }
 
+    private String successMessage(String prefix, ScanResponse data) {
+        if (data == null || data.getInventory() == null) {
+            return prefix;
+        }
+        return prefix + "，当前库存: " + data.getInventory().getQuantity();
+    }
+
     private void showErrorDialog(String title, String message) {
         new AlertDialog.Builder(this)
                 .setTitle(title)
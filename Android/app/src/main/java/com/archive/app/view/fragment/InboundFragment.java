@@ -7,7 +7,6 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.Toast;
@@ -33,15 +32,14 @@ import com.archive.app.adapter.InboundOrderAdapter;
 
 import com.archive.app.model.InboundOrders;
 import com.archive.app.model.Inventory;
+import com.archive.app.util.SuggestWatcher;
 import com.archive.app.view.activity.ScanActivity;
 
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.core.Observable;
@@ -70,7 +68,6 @@ public class InboundFragment extends Fragment implements AdapterCallback {
 
     private List<InboundOrders> currentOrders; // 用于存储当前列表数据
     private ApiService apiService = RetrofitClient.getApiService();
-    private List<Inventory> mListInventory = new ArrayList<>();
 
 
     @Override
@@ -152,32 +149,9 @@ public class InboundFragment extends Fragment implements AdapterCallback {
         swipeRefreshLayout.setOnRefreshListener(this::fetchInboundOrders);
         btnManualInbound.setOnClickListener(v -> showManualInputDialog("INBOUND")); // *** 新增：为新按钮设置监听器 ***
 
-        initInventory();
-
         return view;
     }
 
-    private void initInventory() {
-        apiService.listInventory().enqueue(new Callback<List<Inventory>>() {
-            @Override
-            public void onResponse(Call<List<Inventory>> call, Response<List<Inventory>> response) {
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    mListInventory.clear();
-                    mListInventory = response.body();
-                    // 数据回来后，更新提示列表
-                    Log.d("InboundFragment", "Inventory 列表加载成功，数量: " + mListInventory.size());
-                } else {
-                    // showNoResults();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<List<Inventory>> call, Throwable t) {
-
-            }
-        });
-    }
-
 
 
 // ... 其他引用
@@ -189,34 +163,8 @@ public class InboundFragment extends Fragment implements AdapterCallback {
         // 2. 获取 AutoCompleteTextView 控件
         final AutoCompleteTextView actvInput = dialogView.findViewById(R.id.et_batch_code_input);
 
-        // 3. 准备数据源：从 mListInventory 中提取 batchCode 列表
-        List<String> batchCodeList = new ArrayList<>();
-        if (mListInventory != null && !mListInventory.isEmpty()) {
-            // 使用 Java 8 Stream 快速提取批次号 (如果你的项目不支持 Java 8，可以用普通 for 循环)
-            batchCodeList = mListInventory.stream()
-                    .map(Inventory::getBatchCode) // 假设 Inventory 有 getBatchCode() 方法
-                    .collect(Collectors.toList());
-        }
-
-        // 4. 创建适配器 ArrayAdapter
-        // android.R.layout.simple_dropdown_item_1line 是安卓系统自带的下拉条目样式
-        Log.d("InboundFragment", "批次号列表: " + batchCodeList);
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                getContext(),
-                android.R.layout.simple_dropdown_item_1line,
-                batchCodeList
-        );
-
-        // 5. 将适配器设置给 AutoCompleteTextView
-        actvInput.setAdapter(adapter);
-        adapter.notifyDataSetChanged();
-
-        // (可选) 点击输入框时立即显示所有选项（如果你希望不输入内容点一下也显示）
-        actvInput.setOnClickListener(v -> {
-            if (!actvInput.isPopupShowing()) {
-                actvInput.showDropDown();
-            }
-        });
+        // 3. 输入时向服务器请求匹配前缀的批次号，不再预先下载完整的库存列表
+        SuggestWatcher.attach(actvInput, prefix -> apiService.suggestBatchCodes(prefix, 10));
 
         // 6. 创建并显示对话框
         new AlertDialog.Builder(getContext())
@@ -22,12 +22,11 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.archive.app.ApiClient;
 import com.archive.app.R;
 import com.archive.app.adapter.OutboundLogAdapter;
+import com.archive.app.dto.CursorPage;
 
 import com.archive.app.model.TransactionLogs;
 import com.archive.app.view.activity.ScanActivity;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -35,6 +34,9 @@ import retrofit2.Response;
 
 public class OutboundFragment extends Fragment implements OutboundLogAdapter.OnDeleteClickListener{
 
+    // 列表只显示最近的出库记录，与服务端 page.max-size 一致
+    private static final int OUTBOUND_PAGE_SIZE = 200;
+
     private Button btnScanOutbound;
     private RecyclerView recyclerView;
     private OutboundLogAdapter adapter;
@@ -88,27 +90,24 @@ public class OutboundFragment extends Fragment implements OutboundLogAdapter.OnD
 
     /**
      * 获取并显示出库日志
-     * 注意：这是一个客户端筛选实现。最佳实践是让后端提供一个专门的接口来返回出库记录。
+     * 由服务端按类型过滤 (走 type + created_at 索引)，只取最近的一页，不再下载全部日志
      */
     private void fetchOutboundLogs() {
         swipeRefreshLayout.setRefreshing(true);
-        ApiClient.getApiService().listTransactionLogs().enqueue(new Callback<List<TransactionLogs>>() {
+        ApiClient.getApiService().searchTransactionLogs("出库", null, null, null, OUTBOUND_PAGE_SIZE, null)
+                .enqueue(new Callback<CursorPage<TransactionLogs>>() {
             @Override
-            public void onResponse(Call<List<TransactionLogs>> call, Response<List<TransactionLogs>> response) {
+            public void onResponse(Call<CursorPage<TransactionLogs>> call, Response<CursorPage<TransactionLogs>> response) {
                 swipeRefreshLayout.setRefreshing(false);
                 if (response.isSuccessful() && response.body() != null) {
-                    // 在客户端筛选出类型为 "出库" 的日志
-                    List<TransactionLogs> outboundLogs = response.body().stream()
-                            .filter(log -> "出库".equals(log.getType()))
-                            .collect(Collectors.toList());
-                    adapter.setLogs(outboundLogs);
+                    adapter.setLogs(response.body().getItems());
                 } else {
                     Toast.makeText(getContext(), "加载出库记录失败", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
-            public void onFailure(Call<List<TransactionLogs>> call, Throwable t) {
+            public void onFailure(Call<CursorPage<TransactionLogs>> call, Throwable t) {
                 swipeRefreshLayout.setRefreshing(false);
                 Toast.makeText(getContext(), "网络错误: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
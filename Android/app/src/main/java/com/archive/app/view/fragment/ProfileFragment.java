@@ -22,12 +22,14 @@ import com.archive.app.ApiService;
 import com.archive.app.MyApplication;
 import com.archive.app.R;
 import com.archive.app.RetrofitClient;
+import com.archive.app.dto.CursorPage;
 import com.archive.app.model.TransactionLogs;
 import com.archive.app.model.Users;
 import com.archive.app.view.activity.LoginActivity;
 import com.google.android.material.textfield.TextInputEditText;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -46,6 +48,10 @@ public class ProfileFragment extends Fragment {
     private ApiService apiService;
 
     private static final String TAG = "ProfileFragment";
+    // 与服务端 page.max-size 一致，每次读取尽量多的行以减少请求次数
+    private static final int STATS_PAGE_SIZE = 200;
+    // 统计只用到类型和操作员，服务端只查询、只返回这几列
+    private static final String STATS_FIELDS = "type,userId";
 
     @Nullable
     @Override
@@ -96,18 +102,38 @@ public class ProfileFragment extends Fragment {
 
     /**
      * 获取并计算今日统计数据
+     * 由服务端按当前用户和今日零点过滤 (走 user_id + created_at 索引)，只下载今天自己的日志
      */
     private void fetchTodayStatistics() {
-        // 获取今日日期字符串，格式为 yyyy-MM-dd，用于匹配日志创建时间
-        String todayDate = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        Users currentUser = MyApplication.getCurrentUser();
+        if (currentUser == null) {
+            return;
+        }
+        // 今日零点，格式与服务端的 ISO 时间参数一致
+        String todayStart = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date()) + "T00:00:00";
+        fetchTodayLogs(currentUser.getId(), todayStart, null, new ArrayList<>());
+    }
 
-        apiService.getTransactionLogs().enqueue(new Callback<List<TransactionLogs>>() {
+    /**
+     * 逐页读取今日日志，读到最后一页后再统计
+     */
+    private void fetchTodayLogs(int userId, String todayStart, String cursor, List<TransactionLogs> collected) {
+        apiService.searchTransactionLogs(null, userId, todayStart, cursor, STATS_PAGE_SIZE, STATS_FIELDS)
+                .enqueue(new Callback<CursorPage<TransactionLogs>>() {
             @Override
-            public void onResponse(Call<List<TransactionLogs>> call, Response<List<TransactionLogs>> response) {
+            public void onResponse(Call<CursorPage<TransactionLogs>> call, Response<CursorPage<TransactionLogs>> response) {
+                if (!isAdded()) {
+                    return;
+                }
                 if (response.isSuccessful() && response.body() != null) {
-                    List<TransactionLogs> logs = response.body();
-                    Log.d(TAG, "Loaded " + logs.size() + " transaction logs");
-                    calculateAndShowStats(logs, todayDate);
+                    CursorPage<TransactionLogs> page = response.body();
+                    collected.addAll(page.getItems());
+                    if (page.getNextCursor() != null) {
+                        fetchTodayLogs(userId, todayStart, page.getNextCursor(), collected);
+                        return;
+                    }
+                    Log.d(TAG, "Loaded " + collected.size() + " transaction logs");
+                    calculateAndShowStats(collected, todayStart);
                 } else {
                     Log.e(TAG, "Failed to load stats: " + response.code());
                     // 可选：显示错误提示或重置数字为0
@@ -115,9 +141,11 @@ public class ProfileFragment extends Fragment {
             }
 
             @Override
-            public void onFailure(Call<List<TransactionLogs>> call, Throwable t) {
+            public void onFailure(Call<CursorPage<TransactionLogs>> call, Throwable t) {
                 Log.e(TAG, "Network error loading stats", t);
-                Toast.makeText(getContext(), R.string.network_error, Toast.LENGTH_SHORT).show();
+                if (isAdded()) {
+                    Toast.makeText(getContext(), R.string.network_error, Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
@@ -8,7 +8,6 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter; // 新增导入
 import android.widget.AutoCompleteTextView; // 新增导入
 import android.widget.Button;
 // import android.widget.EditText; // 删除或注释掉
@@ -31,12 +30,10 @@ import com.archive.app.model.InboundOrders;
 import com.archive.app.model.Inventory;
 import com.archive.app.model.Products;
 import com.archive.app.view.activity.ProductDetailActivity;
+import com.archive.app.util.SuggestWatcher;
 import com.archive.app.view.activity.ScanActivity;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -54,9 +51,8 @@ public class QueryFragment extends Fragment {
 
     private static final String TAG = "QueryFragment";
 
-    // 用于自动补全的 Adapter
-    private ArrayAdapter<String> mAutoAdapter;
-    private List<String> mAutoDataList = new ArrayList<>();
+    // 每次输入返回的自动补全候选数
+    private static final int SUGGEST_LIMIT = 10;
 
     // ... ScanLauncher 代码保持不变 ...
     private final ActivityResultLauncher<Intent> scanQueryResultLauncher = registerForActivityResult(
@@ -74,9 +70,6 @@ public class QueryFragment extends Fragment {
                 }
             });
 
-    private List<Inventory> mListInventory = new ArrayList<>();
-    private List<Products> mListProducts = new ArrayList<>();
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -99,13 +92,10 @@ public class QueryFragment extends Fragment {
         btnScanQuery.setOnClickListener(v -> startScan());
         btnSearch.setOnClickListener(v -> handleSearch());
 
-        // 3. 初始化自动补全的 Adapter
-        // simple_dropdown_item_1line 是 Android 自带的下拉项样式
-        mAutoAdapter = new ArrayAdapter<>(requireContext(),
-                android.R.layout.simple_dropdown_item_1line, mAutoDataList);
-        etQueryInput.setAdapter(mAutoAdapter);
-        // 设置从第1个字符开始匹配
-        etQueryInput.setThreshold(1);
+        // 3. 输入时向服务器请求批次号和 SKU 的自动补全候选，不再下载完整的库存和产品列表
+        SuggestWatcher.attach(etQueryInput,
+                prefix -> apiService.suggestBatchCodes(prefix, SUGGEST_LIMIT),
+                prefix -> apiService.suggestSkus(prefix, SUGGEST_LIMIT));
 
         // 4. 处理用户点击下拉项的事件
         etQueryInput.setOnItemClickListener((parent, view1, position, id) -> {
@@ -116,96 +106,9 @@ public class QueryFragment extends Fragment {
             // handleSearch();
         });
 
-        initInventory();
-        initProducts();
-
         return view;
     }
 
-    /**
-     * 核心方法：更新自动补全的数据源
-     * 将 Inventory 的 batchCode 和 Products 的 sku 合并
-     */
-    private void updateAutoCompleteData() {
-        if (getContext() == null) return;
-
-        // 使用 Set 去重，防止重复提示
-        Set<String> uniqueData = new HashSet<>();
-
-        // 添加 SKU
-        if (mListProducts != null) {
-            for (Products p : mListProducts) {
-                if (!TextUtils.isEmpty(p.getSku())) {
-                    uniqueData.add(p.getSku());
-                }
-            }
-        }
-
-        // 添加 BatchCode
-        if (mListInventory != null) {
-            for (Inventory inv : mListInventory) {
-                if (!TextUtils.isEmpty(inv.getBatchCode())) {
-                    uniqueData.add(inv.getBatchCode());
-                }
-            }
-        }
-
-        // 更新列表
-        mAutoDataList.clear();
-        mAutoDataList.addAll(uniqueData);
-
-        // 通知 Adapter 数据变了
-        // 注意：ArrayAdapter 有时需要重新通过 new 创建或者使用 clear/addAll 配合 notify
-        // 最稳妥的方式是重新设置 Adapter 或者使用 addAll (如果 API level 允许)
-        // 这里使用最通用的重置方式：
-        mAutoAdapter = new ArrayAdapter<>(requireContext(),
-                android.R.layout.simple_dropdown_item_1line, mAutoDataList);
-        etQueryInput.setAdapter(mAutoAdapter);
-        mAutoAdapter.notifyDataSetChanged();
-    }
-
-    private void initProducts() {
-        apiService.listProducts().enqueue(new Callback<List<Products>>() {
-            @Override
-            public void onResponse(Call<List<Products>> call, Response<List<Products>> response) {
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    mListProducts.clear();
-                    mListProducts = response.body();
-                    // 数据回来后，更新提示列表
-                    updateAutoCompleteData();
-                } else {
-                    showNoResults(); // 注意：这里可能不需要 showNoResults，因为这是初始化数据
-                }
-            }
-            @Override
-            public void onFailure(Call<List<Products>> call, Throwable t) {
-                // 忽略错误或记录日志，不影响主流程
-                Log.e(TAG, "Init products error: ", t);
-            }
-        });
-    }
-
-    private void initInventory() {
-        apiService.listInventory().enqueue(new Callback<List<Inventory>>() {
-            @Override
-            public void onResponse(Call<List<Inventory>> call, Response<List<Inventory>> response) {
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    mListInventory.clear();
-                    mListInventory = response.body();
-                    // 数据回来后，更新提示列表
-                    updateAutoCompleteData();
-                } else {
-                    // showNoResults();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<List<Inventory>> call, Throwable t) {
-                Log.e(TAG, "Init inventory error: ", t);
-            }
-        });
-    }
-
     // ... startScan, handleSearch, searchByBatchCode, searchBySku, etc. 保持不变 ...
     // ... 下面的代码不需要修改，除了 etQueryInput 的引用类型变了，但 getText() 方法是通用的 ...
 
@@ -1,12 +1,35 @@
 package com.graduation.common;// You would create this file in your project, for example in a 'com.partapp.partappchain.common' package
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.graduation.dto.ByIdsResponse;
+import com.graduation.dto.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A generic base controller providing CRUD endpoints.
+ * getById/list 返回基于实体版本号 (EntityVersions) 的 ETag，If-None-Match 命中时返回 304，不查数据库；
+ * 增删改通过 MyBatis 执行，由 EntityVersionInterceptor 在提交后增加版本号。
+ * /page 为游标分页；/list 保留给小表和旧客户端，最多返回 list.max-rows 行。
+ * 三个查询接口都支持 ?fields=id,name 只查询、只返回指定的属性 (见 FieldSelection)。
+ * POST /by-ids 按 ID 批量查询，用来代替客户端逐行调用 getById 或下载整张表。
  * @param <S> The service class for the entity
  * @param <T> The entity class
  */
@@ -15,14 +38,115 @@ public class BaseController<S extends IService<T>, T> {
     @Autowired
     protected S service;
 
+    @Autowired
+    protected EntityVersions entityVersions;
+
+    @Value("${page.default-size:50}")
+    protected int defaultPageSize;
+
+    @Value("${page.max-size:200}")
+    protected int maxPageSize;
+
+    @Value("${list.max-rows:5000}")
+    protected int listMaxRows;
+
+    @Value("${by-ids.max-size:500}")
+    protected int byIdsMaxSize;
+
     @GetMapping("/{id}")
-    public T getById(@PathVariable("id") Long id) {
+    public T getById(@PathVariable("id") Long id, WebRequest request) {
+        // 单行查询仍走 service.getById (可能命中实体缓存)，fields 只裁剪响应
+        selectFields(null, request);
+        if (notModified(request)) {
+            return null;
+        }
         return service.getById(id);
     }
 
     @GetMapping("/list")
-    public List<T> list() {
-        return service.list();
+    public List<T> list(WebRequest request) {
+        QueryWrapper<T> wrapper = selectFields(new QueryWrapper<>(), request);
+        if (notModified(request)) {
+            return null;
+        }
+        return capped(wrapper, request);
+    }
+
+    /**
+     * 游标分页: /page?size=50&sort=createdAt&order=desc&userId=3&fields=id,userId,createdAt
+     * 翻页时只需传上一页返回的 cursor (排序方式记录在游标中)，其余非分页参数按属性名等值过滤。
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> page(@RequestParam Map<String, String> params, WebRequest request) {
+        Map<String, String> filters = new LinkedHashMap<>(params);
+        KeysetQuery.RESERVED_PARAMS.forEach(filters::remove);
+        int size;
+        KeysetQuery<T> query;
+        QueryWrapper<T> wrapper;
+        try {
+            size = params.containsKey("size") ? Integer.parseInt(params.get("size")) : defaultPageSize;
+            size = Math.max(1, Math.min(size, maxPageSize));
+            query = KeysetQuery.of(service.getEntityClass(), params.get("cursor"), params.get("sort"), params.get("order"));
+            // 多查一行，用来判断是否还有下一页
+            wrapper = query.wrapper(filters, size + 1);
+            selectFields(wrapper, request, query.keyColumns());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("size 必须是整数");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        List<T> rows = service.list(wrapper);
+        CursorPage<T> page = new CursorPage<>();
+        page.setSize(size);
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            page.setNextCursor(query.cursorAfter(rows.get(size - 1)));
+        }
+        page.setItems(rows);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * 按 ID 批量查询: POST /by-ids，请求体为 ID 数组，例如 [3, 1, 2]
+     * 一次 IN 查询 (有实体缓存的服务先查缓存)，结果按请求中的顺序返回，不存在的 ID 放在 missingIds 中。
+     * 支持 ?fields= 裁剪响应。
+     */
+    @PostMapping("/by-ids")
+    public ResponseEntity<?> getByIds(@RequestBody List<Long> ids, WebRequest request) {
+        Set<Long> unique = new LinkedHashSet<>(ids == null ? List.of() : ids);
+        unique.remove(null);
+        if (unique.isEmpty()) {
+            return ResponseEntity.badRequest().body("ids 不能为空");
+        }
+        if (unique.size() > byIdsMaxSize) {
+            return ResponseEntity.badRequest().body("一次最多查询 " + byIdsMaxSize + " 个 id");
+        }
+        TableInfo table = TableInfoHelper.getTableInfo(service.getEntityClass());
+        if (table == null || table.getKeyProperty() == null) {
+            return ResponseEntity.badRequest().body("该实体不支持按 ID 批量查询");
+        }
+        selectFields(null, request);
+
+        Map<Long, T> found = new HashMap<>();
+        for (T row : service.listByIds(unique)) {
+            Object id = table.getPropertyValue(row, table.getKeyProperty());
+            if (id instanceof Number number) {
+                found.put(number.longValue(), row);
+            }
+        }
+        ByIdsResponse<T> response = new ByIdsResponse<>();
+        for (Long id : unique) {
+            T row = found.get(id);
+            if (row == null) {
+                response.getMissingIds().add(id);
+            } else {
+                response.getItems().add(row);
+            }
+        }
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping
@@ -40,4 +164,52 @@ public class BaseController<S extends IService<T>, T> {
         return service.removeById(id);
     }
 
-}
\ No newline at end of file
+    /**
+     * 客户端带来的 If-None-Match 与当前 ETag 相同时返回 true，此时响应已被设置为 304，方法直接返回 null 即可。
+     * 必须在查询数据库之前调用；no-cache 让浏览器每次都带上 ETag 重新验证，而不是直接使用本地缓存。
+     */
+    protected boolean notModified(WebRequest request) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(entityVersions.etag(service.getEntityClass()));
+    }
+
+    /**
+     * 解析 fields 参数：wrapper 不为 null 时只查询选中的列和 requiredColumns，并让 FieldSelectionAdvice 裁剪响应。
+     * 没有 fields 参数时原样返回 wrapper；字段不存在时返回 400。
+     */
+    protected QueryWrapper<T> selectFields(QueryWrapper<T> wrapper, WebRequest request, String... requiredColumns) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.of(service.getEntityClass(), request.getParameter(FieldSelection.PARAM));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (selection == null) {
+            return wrapper;
+        }
+        request.setAttribute(FieldSelection.ATTRIBUTE, selection, RequestAttributes.SCOPE_REQUEST);
+        return wrapper == null ? null : selection.select(wrapper, requiredColumns);
+    }
+
+    /**
+     * 不分页的查询最多返回 list.max-rows 行，超出时截断并设置响应头 X-Result-Truncated: true，
+     * 需要完整数据的客户端应改用 /page。
+     * 最后按主键升序排序 (调用方已有排序时作为次要排序)，保证截断时返回的是确定的一组行
+     */
+    protected List<T> capped(QueryWrapper<T> wrapper, WebRequest request) {
+        TableInfo table = TableInfoHelper.getTableInfo(service.getEntityClass());
+        if (table != null && table.getKeyColumn() != null) {
+            wrapper.orderByAsc(table.getKeyColumn());
+        }
+        List<T> rows = service.list(wrapper.last("LIMIT " + (listMaxRows + 1)));
+        if (rows.size() <= listMaxRows) {
+            return rows;
+        }
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader("X-Result-Truncated", "true");
+        }
+        return rows.subList(0, listMaxRows);
+    }
+}
@@ -0,0 +1,132 @@
+package com.graduation.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 按批次号分段的 JVM 内锁
+ * 批次号哈希到固定数量的锁上，同一批次的并发扫码先在内存中排队，
+ * 拿到锁之后才开启事务、借用数据库连接，热点批次不会占满 Hikari 连接池。
+ * 同时按分段统计加锁次数和等待时间，便于发现热点批次。
+ */
+@Component
+public class BatchLockStripes {
+
+    private final ReentrantLock[] locks;
+    private final LongAdder[] acquisitions;
+    private final LongAdder[] contended;
+    private final LongAdder[] waitNanos;
+    private final AtomicLong[] maxWaitNanos;
+
+    public BatchLockStripes(@Value("${scan.lock.stripes:64}") int stripes) {
+        // 取不小于配置值的 2 的幂，便于用位运算取模
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        acquisitions = new LongAdder[size];
+        contended = new LongAdder[size];
+        waitNanos = new LongAdder[size];
+        maxWaitNanos = new AtomicLong[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+            acquisitions[i] = new LongAdder();
+            contended[i] = new LongAdder();
+            waitNanos[i] = new LongAdder();
+            maxWaitNanos[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * 批次号对应的锁分段; batch_code 大小写不敏感，这里也统一转成小写再哈希
+     */
+    public int stripeOf(String batchCode) {
+        int h = batchCode.toLowerCase(Locale.ROOT).hashCode();
+        h ^= (h >>> 16);
+        return h & (locks.length - 1);
+    }
+
+    /**
+     * 持有批次对应的锁执行操作
+     */
+    public <T> T withLock(String batchCode, Supplier<T> action) {
+        return withLocks(List.of(batchCode), action);
+    }
+
+    /**
+     * 持有多个批次对应的锁执行操作；分段按下标升序加锁，避免死锁
+     */
+    public <T> T withLocks(Collection<String> batchCodes, Supplier<T> action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String batchCode : batchCodes) {
+            if (batchCode != null) {
+                stripes.add(stripeOf(batchCode));
+            }
+        }
+        List<Integer> acquired = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                lock(stripe);
+                acquired.add(stripe);
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                locks[acquired.get(i)].unlock();
+            }
+        }
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        acquisitions[stripe].increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        contended[stripe].increment();
+        waitNanos[stripe].add(waited);
+        maxWaitNanos[stripe].accumulateAndGet(waited, Math::max);
+    }
+
+    /**
+     * 各分段的加锁统计，只返回被使用过的分段
+     */
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < locks.length; i++) {
+            long count = acquisitions[i].sum();
+            if (count == 0) {
+                continue;
+            }
+            long contendedCount = contended[i].sum();
+            long totalWait = waitNanos[i].sum();
+            Map<String, Object> stripe = new LinkedHashMap<>();
+            stripe.put("stripe", i);
+            stripe.put("acquisitions", count);
+            stripe.put("contended", contendedCount);
+            stripe.put("queueLength", locks[i].getQueueLength());
+            stripe.put("totalWaitMs", totalWait / 1_000_000.0);
+            stripe.put("avgWaitMs", contendedCount == 0 ? 0.0 : totalWait / 1_000_000.0 / contendedCount);
+            stripe.put("maxWaitMs", maxWaitNanos[i].get() / 1_000_000.0);
+            result.add(stripe);
+        }
+        return result;
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+}
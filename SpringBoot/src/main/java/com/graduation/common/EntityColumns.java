@@ -0,0 +1,35 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+
+import java.util.Locale;
+
+/**
+ * 客户端传入的属性名 -> 表的列名
+ * 列名只取自 MyBatis-Plus 的表结构元数据，不会拼接客户端传入的字符串；
+ * 密码字段不能被查询或作为过滤条件，避免被用来逐个猜测。
+ * 过滤条件 (KeysetQuery) 和稀疏字段集 (FieldSelection) 共用这套规则。
+ */
+final class EntityColumns {
+
+    private EntityColumns() {
+    }
+
+    /**
+     * @return 属性对应的列名；属性不存在或不允许访问时返回 null
+     */
+    static String columnOf(TableInfo table, String property) {
+        if (property.toLowerCase(Locale.ROOT).contains("password")) {
+            return null;
+        }
+        if (property.equals(table.getKeyProperty())) {
+            return table.getKeyColumn();
+        }
+        return table.getFieldList().stream()
+                .filter(f -> f.getProperty().equals(property))
+                .map(TableFieldInfo::getColumn)
+                .findFirst()
+                .orElse(null);
+    }
+}
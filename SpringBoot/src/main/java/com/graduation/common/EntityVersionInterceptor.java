@@ -0,0 +1,50 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MyBatis 插件: 任何 Mapper 的 insert/update/delete 执行后，增加对应实体的版本号 (EntityVersions)
+ * 在 Spring 事务中执行时等事务提交后再增加；没有事务时连接为自动提交，语句返回时已经提交，直接增加。
+ * MyBatis-Plus 的自动配置会把容器中的 Interceptor 注册到 SqlSessionFactory。
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class EntityVersionInterceptor implements Interceptor {
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    /**
+     * Mapper 命名空间 -> 实体类型
+     */
+    private final Map<String, Optional<Class<?>>> typeByNamespace = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        entityType(statement.getId()).ifPresent(entityVersions::bumpAfterCommit);
+        return result;
+    }
+
+    private Optional<Class<?>> entityType(String statementId) {
+        String namespace = statementId.substring(0, statementId.lastIndexOf('.'));
+        return typeByNamespace.computeIfAbsent(namespace, ns -> TableInfoHelper.getTableInfos().stream()
+                .filter(info -> ns.equals(info.getCurrentNamespace()))
+                .<Class<?>>map(TableInfo::getEntityType)
+                .findFirst());
+    }
+}
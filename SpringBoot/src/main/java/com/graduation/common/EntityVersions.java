@@ -0,0 +1,75 @@
+package com.graduation.common;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每种实体一个版本号，实体表有任何增删改时加一
+ * BaseController 的 getById/list 用它生成 ETag，客户端带 If-None-Match 重新请求时，
+ * 版本号没变就直接返回 304，不查数据库。
+ *
+ * 版本号必须在修改提交之后再增加：如果先加版本号再提交，期间的读请求会把旧数据和新 ETag 一起返回给客户端，
+ * 客户端之后一直收到 304，看不到这次修改。
+ * MyBatis-Plus 的写操作由 EntityVersionInterceptor 统一处理；JPA 和 JdbcTemplate 的写操作在各自的写入点调用。
+ */
+@Component
+public class EntityVersions {
+
+    /**
+     * 版本号只保存在内存中，重启后从 0 开始；ETag 中带上启动时间，重启前发出的 ETag 全部失效
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 本次启动的标识，由版本号组成的令牌需要带上它，重启后旧令牌自动失效
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    public long current(Class<?> type) {
+        return counter(type).get();
+    }
+
+    /**
+     * 修改已经提交 (或者没有事务、语句已自动提交) 时调用
+     */
+    public void bump(Class<?> type) {
+        counter(type).incrementAndGet();
+    }
+
+    /**
+     * 在当前事务提交后增加版本号；事务回滚时不变，没有事务时立即增加
+     */
+    public void bumpAfterCommit(Class<?> type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(type);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump(type);
+            }
+        });
+    }
+
+    /**
+     * 强 ETag，例如 "Products-lq3k9x2a-17"
+     * 读请求必须在查询数据库之前取 ETag，这样即使查询期间发生了修改，返回的 ETag 也只会比数据旧，不会比数据新
+     */
+    public String etag(Class<?> type) {
+        return "\"" + type.getSimpleName() + "-" + epoch + "-" + current(type) + "\"";
+    }
+
+    private AtomicLong counter(Class<?> type) {
+        return versions.computeIfAbsent(type, t -> new AtomicLong());
+    }
+}
@@ -0,0 +1,82 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 稀疏字段集: ?fields=id,batchCode,quantity
+ * SQL 只查询请求的列 (主键和分页需要的列总是查询)，响应只输出请求的属性 (由 FieldSelectionAdvice 处理)。
+ * 字段名为实体属性名，只接受表结构中存在的列，密码字段不能选择；字段不存在时抛出 IllegalArgumentException。
+ */
+public class FieldSelection {
+
+    public static final String PARAM = "fields";
+
+    /**
+     * 控制器把本次请求的 FieldSelection 放在这个请求属性中，FieldSelectionAdvice 据此裁剪响应
+     */
+    public static final String ATTRIBUTE = FieldSelection.class.getName();
+
+    private final Set<String> properties = new LinkedHashSet<>();
+    private final Set<String> columns = new LinkedHashSet<>();
+
+    private FieldSelection() {
+    }
+
+    /**
+     * @param fields 逗号分隔的属性名；为空时返回 null，表示返回完整实体
+     */
+    public static FieldSelection of(Class<?> entityType, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        TableInfo table = TableInfoHelper.getTableInfo(entityType);
+        if (table == null || table.getKeyColumn() == null) {
+            throw new IllegalArgumentException("该实体不支持 fields 参数");
+        }
+        FieldSelection selection = new FieldSelection();
+        // 主键总是查询，游标分页和客户端合并数据都依赖它
+        selection.columns.add(table.getKeyColumn());
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            selection.columns.add(column(table, property));
+            selection.properties.add(property);
+        }
+        if (selection.properties.isEmpty()) {
+            return null;
+        }
+        return selection;
+    }
+
+    /**
+     * 只查询选中的列和 requiredColumns (例如排序键)
+     */
+    public <T> QueryWrapper<T> select(QueryWrapper<T> wrapper, String... requiredColumns) {
+        Set<String> selected = new LinkedHashSet<>(columns);
+        Collections.addAll(selected, requiredColumns);
+        return wrapper.select(selected.toArray(new String[0]));
+    }
+
+    /**
+     * 响应中保留的属性名
+     */
+    public Set<String> properties() {
+        return Collections.unmodifiableSet(properties);
+    }
+
+    private static String column(TableInfo table, String property) {
+        String column = EntityColumns.columnOf(table, property);
+        if (column == null) {
+            throw new IllegalArgumentException("不支持的字段: " + property);
+        }
+        return column;
+    }
+}
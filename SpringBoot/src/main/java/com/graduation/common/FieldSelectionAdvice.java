@@ -0,0 +1,63 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.graduation.dto.ByIdsResponse;
+import com.graduation.dto.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Set;
+
+/**
+ * 按 ?fields= 裁剪 JSON 响应
+ * 只处理控制器放入了 FieldSelection 请求属性的请求；实体、实体列表以及 CursorPage、ByIdsResponse 中的 items 都只保留选中的属性。
+ */
+@ControllerAdvice
+public class FieldSelectionAdvice implements ResponseBodyAdvice<Object> {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        if (!(servletRequest.getServletRequest().getAttribute(FieldSelection.ATTRIBUTE) instanceof FieldSelection selection)) {
+            return body;
+        }
+        // 先按原来的序列化规则 (日期格式等) 转成 JSON 树，再删掉未选中的属性
+        JsonNode tree = objectMapper.valueToTree(body);
+        boolean wrapped = body instanceof CursorPage || body instanceof ByIdsResponse;
+        retain(wrapped ? tree.get("items") : tree, selection.properties());
+        return tree;
+    }
+
+    private static void retain(JsonNode node, Set<String> properties) {
+        if (node == null) {
+            return;
+        }
+        if (node.isArray()) {
+            node.forEach(element -> retain(element, properties));
+        } else if (node instanceof ObjectNode object) {
+            object.retain(properties);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.graduation.common;
+
+import com.graduation.entity.Inventory;
+import com.graduation.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 热点批次的内存计数器 (escrow)
+ * 被标记为热点的批次，扫码时只在内存中用 CAS 修改数量，
+ * 每次扫码仍然写一条异动日志，库存表中的数量由定时任务按累计的增量批量刷回。
+ *
+ * 计数器中的数量是"可出库数量"：出库在扫码时就预留 (立即扣减，不足时拒绝)，事务回滚时归还；
+ * 入库要等事务提交后才加到可出库数量上，未提交的入库不能被并发的出库用掉，
+ * 因此任何提交/回滚的顺序下数量都不会小于 0。库存表只接收已提交的变化，最多落后一个刷新周期。
+ * 后台直接修改或删除批次时，先通过 suspendWhile 刷回并关闭计数器，修改后再按数据库重新加载。
+ */
+@Component
+public class HotBatchCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotBatchCounters.class);
+
+    /**
+     * tryApply 的返回值: 库存不足
+     */
+    public static final int INSUFFICIENT = -1;
+
+    /**
+     * tryApply 的返回值: 计数器已关闭 (批次刚被取消热点标记)，调用方应改走数据库路径
+     */
+    public static final int CLOSED = -2;
+
+    private static final String FLUSH_SQL = "UPDATE inventory SET quantity = quantity + ? WHERE id = ?";
+    private static final String QUANTITY_SQL = "SELECT quantity FROM inventory WHERE id = ?";
+    private static final String LEDGER_SUM_SQL = "SELECT COALESCE(SUM(quantity_change), 0) FROM transaction_logs WHERE inventory_id = ?";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    @Autowired
+    private InventoryBatchIndex inventoryBatchIndex;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    /**
+     * 启动时就标记为热点的批次号，逗号分隔
+     */
+    @Value("${scan.hot.batches:}")
+    private List<String> initialHotBatches;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String batchCode : initialHotBatches) {
+            if (!batchCode.isBlank() && !markHot(batchCode.trim())) {
+                logger.warn("热点批次不存在，已忽略: {}", batchCode);
+            }
+        }
+    }
+
+    /**
+     * @return 批次的热点计数器，非热点批次返回 null
+     */
+    public Counter get(String batchCode) {
+        return batchCode == null ? null : counters.get(key(batchCode));
+    }
+
+    public boolean isHot(String batchCode) {
+        return get(batchCode) != null;
+    }
+
+    /**
+     * 把批次标记为热点；在批次锁内从数据库加载当前数量，期间不会有该批次的扫码在执行
+     *
+     * @return false 表示批次不存在
+     */
+    public boolean markHot(String batchCode) {
+        return batchLocks.withLock(batchCode, () -> {
+            if (counters.containsKey(key(batchCode))) {
+                return true;
+            }
+            Optional<Inventory> inventoryOpt = inventoryRepository.findByBatchCode(batchCode);
+            if (inventoryOpt.isEmpty()) {
+                return false;
+            }
+            counters.put(key(batchCode), new Counter(inventoryOpt.get()));
+            return true;
+        });
+    }
+
+    /**
+     * 取消热点标记，并把尚未刷回的增量写入库存表
+     * 尚未提交的出库预留也一并写入库存表 (之后数据库路径的扫码不能再用掉这部分数量)，
+     * 这些事务之后如果回滚，由 Counter 直接在库存表上归还。
+     *
+     * @return false 表示该批次不是热点批次
+     */
+    public boolean unmarkHot(String batchCode) {
+        return batchLocks.withLock(batchCode, () -> {
+            Counter counter = counters.remove(key(batchCode));
+            if (counter == null) {
+                return false;
+            }
+            counter.close();
+            flush(counter, counter.pendingDelta.getAndSet(0) + counter.reserved.getAndSet(0));
+            // 热点期间索引中的数量没有逐次更新，取消标记后重新从数据库加载
+            inventoryBatchIndex.invalidate(batchCode);
+            return true;
+        });
+    }
+
+    /**
+     * 后台直接修改库存记录时使用 (例如 InventoryController 的修改和删除):
+     * 先取消这些批次的热点标记 (刷回增量)，执行修改，修改后仍然存在的批次按数据库中的新数量重新标记为热点。
+     * 批次号被修改时热点标记不会转移到新的批次号上。
+     */
+    public <T> T suspendWhile(Collection<String> batchCodes, Supplier<T> action) {
+        return batchLocks.withLocks(batchCodes, () -> {
+            List<String> suspended = new ArrayList<>();
+            for (String batchCode : batchCodes) {
+                if (unmarkHot(batchCode)) {
+                    suspended.add(batchCode);
+                }
+            }
+            try {
+                return action.get();
+            } finally {
+                for (String batchCode : suspended) {
+                    if (!markHot(batchCode)) {
+                        logger.info("热点批次已被删除或改名，不再标记: {}", batchCode);
+                    }
+                }
+            }
+        });
+    }
+
+    public List<String> hotBatchCodes() {
+        List<String> codes = new ArrayList<>();
+        counters.values().forEach(c -> codes.add(c.inventory.getBatchCode()));
+        return codes;
+    }
+
+    /**
+     * 定时把各热点批次累计的增量刷回库存表
+     */
+    @Scheduled(fixedDelayString = "${scan.hot.flush-ms:1000}")
+    public void flushAll() {
+        counters.values().forEach(this::flush);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+
+    private void flush(Counter counter) {
+        flush(counter, counter.pendingDelta.getAndSet(0));
+    }
+
+    private void flush(Counter counter, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(FLUSH_SQL, delta, counter.inventory.getId());
+            entityVersions.bump(Inventory.class);
+        } catch (RuntimeException e) {
+            // 放回去，下一个周期重试
+            counter.pendingDelta.addAndGet(delta);
+            logger.error("热点批次数量刷回失败: batchCode={}, delta={}", counter.inventory.getBatchCode(), delta, e);
+        }
+    }
+
+    /**
+     * 对账: 先刷回增量，再比较库存表中的数量与该批次全部异动日志的数量变化之和。
+     * 注意: 不经过扫码写入的库存变化 (例如初始入库时没有写日志、后台直接修改数量) 也会体现为差异；
+     * 异步写日志模式下缓冲区中尚未写库的日志、以及正在进行中的热点扫码 (计数器已修改、日志尚未提交)
+     * 同样会造成暂时的差异，需要在扫码停顿时对账才能得到准确结论。
+     */
+    public List<Map<String, Object>> reconcile() {
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (Counter counter : new ArrayList<>(counters.values())) {
+            String batchCode = counter.inventory.getBatchCode();
+            report.add(batchLocks.withLock(batchCode, () -> {
+                flush(counter);
+                Integer inventoryId = counter.inventory.getId();
+                Integer flushed = jdbcTemplate.queryForObject(QUANTITY_SQL, Integer.class, inventoryId);
+                Long ledgerSum = jdbcTemplate.queryForObject(LEDGER_SUM_SQL, Long.class, inventoryId);
+                int counterQuantity = counter.quantity.get();
+                long pending = counter.pendingDelta.get();
+                int reserved = counter.reserved.get();
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("batchCode", batchCode);
+                row.put("inventoryId", inventoryId);
+                row.put("counterQuantity", counterQuantity);
+                row.put("flushedQuantity", flushed);
+                row.put("pendingDelta", pending);
+                row.put("reserved", reserved);
+                row.put("ledgerSum", ledgerSum);
+                row.put("difference", flushed == null || ledgerSum == null ? null : flushed + pending - ledgerSum);
+                row.put("consistent", flushed != null && ledgerSum != null
+                        && flushed + pending + reserved == counterQuantity && flushed + pending == ledgerSum);
+                return row;
+            }));
+        }
+        return report;
+    }
+
+    private static String key(String batchCode) {
+        // batch_code 列大小写不敏感
+        return batchCode.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单个热点批次的计数器
+     */
+    public static class Counter {
+
+        private final Inventory inventory;
+
+        /**
+         * 可出库数量 = 已提交的数量 - 未提交的出库预留
+         */
+        private final AtomicInteger quantity;
+
+        /**
+         * 已提交、尚未刷回库存表的变化
+         */
+        private final AtomicInteger pendingDelta = new AtomicInteger();
+
+        /**
+         * 未提交的出库预留之和 (小于等于 0)
+         */
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        // 读锁: 扫码修改计数; 写锁: 关闭计数器。保证关闭后不会再有增量落在已经刷回的计数器上
+        private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+        private boolean closed;
+
+        Counter(Inventory inventory) {
+            this.inventory = inventory;
+            this.quantity = new AtomicInteger(inventory.getQuantity());
+        }
+
+        /**
+         * 预留一次数量变化: 出库立即从可出库数量中扣减 (不足时拒绝)；入库只校验，提交后才生效。
+         * 调用方随后必须调用 settleOnCompletion，在事务结束时确认或归还。
+         *
+         * @return 变化后的数量 (入库时为提交后的预计数量)；INSUFFICIENT 表示库存不足；CLOSED 表示计数器已关闭
+         */
+        public int tryApply(int delta) {
+            gate.readLock().lock();
+            try {
+                if (closed) {
+                    return CLOSED;
+                }
+                if (delta >= 0) {
+                    return quantity.get() + delta;
+                }
+                while (true) {
+                    int current = quantity.get();
+                    int next = current + delta;
+                    if (next < 0) {
+                        return INSUFFICIENT;
+                    }
+                    if (quantity.compareAndSet(current, next)) {
+                        reserved.addAndGet(delta);
+                        return next;
+                    }
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+        }
+
+        /**
+         * 当前事务提交时确认 tryApply 的变化 (入库此时才加到可出库数量上)，回滚时归还出库预留；
+         * 没有事务时立即确认
+         */
+        public void settleOnCompletion(int delta, JdbcTemplate jdbcTemplate, EntityVersions entityVersions) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                commit(delta, jdbcTemplate, entityVersions);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        commit(delta, jdbcTemplate, entityVersions);
+                    } else {
+                        rollback(delta, jdbcTemplate, entityVersions);
+                    }
+                }
+            });
+        }
+
+        void commit(int delta, JdbcTemplate jdbcTemplate, EntityVersions entityVersions) {
+            gate.readLock().lock();
+            try {
+                if (!closed) {
+                    if (delta < 0) {
+                        reserved.addAndGet(-delta);
+                    } else {
+                        quantity.addAndGet(delta);
+                    }
+                    pendingDelta.addAndGet(delta);
+                    return;
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+            // 计数器已关闭: 出库预留在关闭时已经写入库存表，入库直接写入库存表
+            if (delta > 0) {
+                jdbcTemplate.update(FLUSH_SQL, delta, inventory.getId());
+                entityVersions.bump(Inventory.class);
+            }
+        }
+
+        void rollback(int delta, JdbcTemplate jdbcTemplate, EntityVersions entityVersions) {
+            if (delta >= 0) {
+                // 入库从未生效，不需要撤销
+                return;
+            }
+            gate.readLock().lock();
+            try {
+                if (!closed) {
+                    quantity.addAndGet(-delta);
+                    reserved.addAndGet(-delta);
+                    return;
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+            // 计数器已关闭且预留已经写入库存表，直接在库存表上归还
+            jdbcTemplate.update(FLUSH_SQL, -delta, inventory.getId());
+            entityVersions.bump(Inventory.class);
+        }
+
+        /**
+         * 以当前计数构造一份库存记录的快照，用于返回给调用方
+         */
+        public Inventory snapshot(int currentQuantity) {
+            Inventory copy = InventoryBatchIndex.copyOf(inventory);
+            copy.setQuantity(currentQuantity);
+            return copy;
+        }
+
+        public Integer getInventoryId() {
+            return inventory.getId();
+        }
+
+        /**
+         * 当前可出库的数量
+         */
+        public int getQuantity() {
+            return quantity.get();
+        }
+
+        /**
+         * 已提交、尚未刷回库存表的变化
+         */
+        int getPendingDelta() {
+            return pendingDelta.get();
+        }
+
+        void close() {
+            gate.writeLock().lock();
+            try {
+                closed = true;
+            } finally {
+                gate.writeLock().unlock();
+            }
+        }
+    }
+}
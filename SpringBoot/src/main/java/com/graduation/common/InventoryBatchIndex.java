@@ -0,0 +1,128 @@
+package com.graduation.common;
+
+import com.graduation.dto.ScanResponse;
+import com.graduation.entity.Inventory;
+import com.graduation.repository.InventoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 批次号 -> 库存记录的进程内索引
+ * 扫码前按批次号查询批次详情是最频繁的请求，这里用有界 LRU 缓存库存记录的快照，冷门批次自动淘汰。
+ *
+ * 一致性: 所有修改库存的路径 (扫码、批量扫码、后台增删改) 都持有该批次的分段锁，并在事务提交后更新或失效索引；
+ * 未命中时同样在分段锁内从数据库加载，因此不会把加载期间被修改的旧数据放回索引。
+ * 热点批次的实时数量以 HotBatchCounters 中的计数为准。
+ */
+@Component
+public class InventoryBatchIndex {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    @Autowired
+    private ProductCache productCache;
+
+    private final LruCache<String, Inventory> index;
+
+    public InventoryBatchIndex(@Value("${inventory.batch-index.size:20000}") int size) {
+        this.index = new LruCache<>(size);
+    }
+
+    /**
+     * 按批次号查询库存记录，未命中时从数据库加载
+     *
+     * @return 库存记录的副本 (调用方可以修改)，批次不存在时返回 null
+     */
+    public Inventory get(String batchCode) {
+        Inventory cached = index.get(key(batchCode));
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        return batchLocks.withLock(batchCode, () -> {
+            // 等锁期间可能已经被其他请求加载
+            Inventory loaded = index.peek(key(batchCode));
+            if (loaded == null) {
+                // 一条 JOIN 查询同时取回库存和产品，产品顺便放入 ProductCache，调用方随后取产品时直接命中
+                long productGeneration = productCache.generation();
+                ScanResponse row = inventoryRepository.findScanResponseByBatchCode(batchCode).orElse(null);
+                if (row == null) {
+                    return null;
+                }
+                if (row.getProduct() != null) {
+                    productCache.putIfUnchanged(row.getProduct(), productGeneration);
+                }
+                loaded = copyOf(row.getInventory());
+                index.put(key(loaded.getBatchCode()), loaded);
+            }
+            return copyOf(loaded);
+        });
+    }
+
+    /**
+     * 在当前事务提交后用最新的库存记录更新索引；事务回滚时索引不变
+     */
+    public void putAfterCommit(Inventory inventory) {
+        Inventory snapshot = copyOf(inventory);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index.put(key(snapshot.getBatchCode()), snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.put(key(snapshot.getBatchCode()), snapshot);
+            }
+        });
+    }
+
+    public void invalidate(String batchCode) {
+        if (batchCode != null) {
+            index.remove(key(batchCode));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hits = index.getHits();
+        long misses = index.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", index.size());
+        stats.put("maxSize", index.getMaxSize());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", index.getEvictions());
+        return stats;
+    }
+
+    /**
+     * 复制一份库存记录，索引中保存的对象不会被调用方或 JPA 持久化上下文修改
+     */
+    public static Inventory copyOf(Inventory inventory) {
+        Inventory copy = new Inventory();
+        copy.setId(inventory.getId());
+        copy.setProductId(inventory.getProductId());
+        copy.setBatchCode(inventory.getBatchCode());
+        copy.setInboundOrderId(inventory.getInboundOrderId());
+        copy.setQuantity(inventory.getQuantity());
+        copy.setReceivedAt(inventory.getReceivedAt());
+        copy.setCreatedAt(inventory.getCreatedAt());
+        copy.setUpdatedAt(inventory.getUpdatedAt());
+        return copy;
+    }
+
+    private static String key(String batchCode) {
+        // batch_code 列大小写不敏感
+        return batchCode.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,76 @@
+package com.graduation.common;
+
+import com.graduation.entity.Products;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 二级缓存 / 查询缓存的区域管理
+ * 同一张表还会经过 MyBatis-Plus 写入，Hibernate 感知不到这些修改，
+ * 由对应的 MyBatis-Plus 服务在写库后调用这里失效实体区域和相关的查询区域。
+ */
+@Component
+public class JpaCacheRegions {
+
+    /**
+     * 产品相关的可缓存查询使用的区域 (见 ehcache.xml)
+     */
+    public static final String PRODUCTS_QUERIES = "products-queries";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 产品被修改或删除后调用；id 为 null 时失效全部产品
+     */
+    public void evictProduct(Integer id) {
+        Cache cache = sessionFactory().getCache();
+        if (id == null) {
+            cache.evictEntityData(Products.class);
+        } else {
+            cache.evictEntityData(Products.class, id);
+        }
+        // 按 SKU 等条件缓存的查询结果可能包含这个产品，整个区域一起失效
+        cache.evictQueryRegion(PRODUCTS_QUERIES);
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("secondLevelHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("secondLevelMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("secondLevelPuts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        stats.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryCachePuts", statistics.getQueryCachePutCount());
+        Map<String, Object> regions = new LinkedHashMap<>();
+        regions.put(Products.class.getName(), regionStats(statistics.getDomainDataRegionStatistics(Products.class.getName())));
+        regions.put(PRODUCTS_QUERIES, regionStats(statistics.getQueryRegionStatistics(PRODUCTS_QUERIES)));
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    private static Map<String, Object> regionStats(CacheRegionStatistics region) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (region == null) {
+            return stats;
+        }
+        stats.put("elements", region.getElementCountInMemory());
+        stats.put("hits", region.getHitCount());
+        stats.put("misses", region.getMissCount());
+        stats.put("puts", region.getPutCount());
+        return stats;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
@@ -0,0 +1,197 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于游标 (keyset) 的分页查询条件
+ * 按 id 或 (created_at, id) 排序，下一页从上一页最后一行之后开始 (created_at > ? OR (created_at = ? AND id > ?))，
+ * 而不是 LIMIT offset, size；无论翻到第几页，数据库都只沿索引读取 size 行。
+ *
+ * 游标是上一页最后一行的排序键，连同排序方式一起做 Base64 编码，翻页时只需要传 cursor。
+ * 参数错误 (排序字段、过滤字段不存在，游标无法解析) 时抛出 IllegalArgumentException。
+ */
+public class KeysetQuery<T> {
+
+    public static final String SORT_ID = "id";
+    public static final String SORT_CREATED_AT = "createdAt";
+
+    /**
+     * 分页参数，不作为过滤条件
+     */
+    public static final Set<String> RESERVED_PARAMS = Set.of("cursor", "size", "sort", "order", FieldSelection.PARAM);
+
+    private static final String CREATED_AT_COLUMN = "created_at";
+
+    private final TableInfo table;
+    private final boolean byCreatedAt;
+    private final boolean descending;
+
+    // 从游标中解析出的上一页最后一行的排序键，第一页时为 null
+    private Object lastId;
+    private LocalDateTime lastCreatedAt;
+
+    private KeysetQuery(TableInfo table, boolean byCreatedAt, boolean descending) {
+        this.table = table;
+        this.byCreatedAt = byCreatedAt;
+        this.descending = descending;
+    }
+
+    /**
+     * @param cursor 上一页返回的 nextCursor；不为空时排序方式以游标中记录的为准，忽略 sort 和 order
+     * @param sort   id (默认) 或 createdAt
+     * @param order  asc (默认) 或 desc
+     */
+    public static <T> KeysetQuery<T> of(Class<T> entityType, String cursor, String sort, String order) {
+        TableInfo table = TableInfoHelper.getTableInfo(entityType);
+        if (table == null || table.getKeyColumn() == null) {
+            throw new IllegalArgumentException("该实体不支持分页查询");
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            return decode(table, cursor);
+        }
+        boolean byCreatedAt = parseSort(table, sort);
+        boolean descending = parseOrder(order);
+        return new KeysetQuery<>(table, byCreatedAt, descending);
+    }
+
+    /**
+     * 生成查询条件: 过滤条件 + 游标位置 + 排序 + LIMIT
+     *
+     * @param filters 属性名 -> 值，按等值过滤 (例如 userId=3)
+     * @param limit   查询的行数，调用方通常多查一行用来判断是否还有下一页
+     */
+    public QueryWrapper<T> wrapper(Map<String, String> filters, int limit) {
+        QueryWrapper<T> wrapper = new QueryWrapper<>();
+        filters.forEach((property, value) -> wrapper.eq(column(property), value));
+        String key = table.getKeyColumn();
+        if (byCreatedAt) {
+            // created_at 为空的行无法比较位置，不参与按时间的分页
+            wrapper.isNotNull(CREATED_AT_COLUMN);
+            if (lastCreatedAt != null) {
+                wrapper.and(w -> {
+                    if (descending) {
+                        w.lt(CREATED_AT_COLUMN, lastCreatedAt)
+                                .or(o -> o.eq(CREATED_AT_COLUMN, lastCreatedAt).lt(key, lastId));
+                    } else {
+                        w.gt(CREATED_AT_COLUMN, lastCreatedAt)
+                                .or(o -> o.eq(CREATED_AT_COLUMN, lastCreatedAt).gt(key, lastId));
+                    }
+                });
+            }
+            if (descending) {
+                wrapper.orderByDesc(CREATED_AT_COLUMN, key);
+            } else {
+                wrapper.orderByAsc(CREATED_AT_COLUMN, key);
+            }
+        } else {
+            if (lastId != null) {
+                if (descending) {
+                    wrapper.lt(key, lastId);
+                } else {
+                    wrapper.gt(key, lastId);
+                }
+            }
+            if (descending) {
+                wrapper.orderByDesc(key);
+            } else {
+                wrapper.orderByAsc(key);
+            }
+        }
+        wrapper.last("LIMIT " + limit);
+        return wrapper;
+    }
+
+    /**
+     * 生成游标需要的列，只查询部分列 (fields) 时必须包含它们
+     */
+    public String[] keyColumns() {
+        return byCreatedAt
+                ? new String[]{table.getKeyColumn(), CREATED_AT_COLUMN}
+                : new String[]{table.getKeyColumn()};
+    }
+
+    /**
+     * 以某一行作为下一页起点的游标
+     */
+    public String cursorAfter(T last) {
+        Object id = table.getPropertyValue(last, table.getKeyProperty());
+        StringBuilder raw = new StringBuilder(byCreatedAt ? SORT_CREATED_AT : SORT_ID)
+                .append('|').append(descending ? "desc" : "asc")
+                .append('|').append(id);
+        if (byCreatedAt) {
+            raw.append('|').append(table.getPropertyValue(last, createdAtProperty(table)));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> KeysetQuery<T> decode(TableInfo table, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            boolean byCreatedAt = parseSort(table, parts[0]);
+            if (parts.length != (byCreatedAt ? 4 : 3)) {
+                throw new IllegalArgumentException("无效的 cursor");
+            }
+            KeysetQuery<T> query = new KeysetQuery<>(table, byCreatedAt, parseOrder(parts[1]));
+            query.lastId = Long.parseLong(parts[2]);
+            if (byCreatedAt) {
+                query.lastCreatedAt = LocalDateTime.parse(parts[3]);
+            }
+            return query;
+        } catch (NumberFormatException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("无效的 cursor");
+        }
+    }
+
+    private static boolean parseSort(TableInfo table, String sort) {
+        if (sort == null || sort.isEmpty() || SORT_ID.equals(sort)) {
+            return false;
+        }
+        if (SORT_CREATED_AT.equals(sort) && createdAtProperty(table) != null) {
+            return true;
+        }
+        throw new IllegalArgumentException("不支持的排序字段: " + sort);
+    }
+
+    private static boolean parseOrder(String order) {
+        if (order == null || order.isEmpty() || "asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        throw new IllegalArgumentException("order 只能是 asc 或 desc");
+    }
+
+    /**
+     * @return created_at 列对应的属性名，没有该列时返回 null
+     */
+    private static String createdAtProperty(TableInfo table) {
+        return table.getFieldList().stream()
+                .filter(f -> CREATED_AT_COLUMN.equals(f.getColumn()))
+                .map(TableFieldInfo::getProperty)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 过滤条件只接受实体中存在的属性 (规则见 EntityColumns)
+     */
+    private String column(String property) {
+        String column = EntityColumns.columnOf(table, property);
+        if (column == null) {
+            throw new IllegalArgumentException("不支持的过滤条件: " + property);
+        }
+        return column;
+    }
+}
@@ -0,0 +1,201 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 异动日志导出
+ * 使用只进的流式结果集逐行读取，读一行写一行到响应流，内存占用与导出的行数无关。
+ * 数据库连接在开始查询时从连接池取出、写完最后一行后归还，不会在流之外多占用连接。
+ */
+@Component
+public class LedgerExporter {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * 导出条件，均可为 null；时间范围为 [from, to)
+     */
+    public record Filter(LocalDateTime from, LocalDateTime to, String type, Integer userId, Integer inventoryId) {
+    }
+
+    private static final String SELECT_SQL = "SELECT id, inventory_id, user_id, type, quantity_change, "
+            + "quantity_after_transaction, notes, client_scan_id, created_at FROM transaction_logs WHERE 1 = 1";
+
+    private static final String CSV_HEADER = "id,inventory_id,user_id,type,quantity_change,"
+            + "quantity_after_transaction,notes,client_scan_id,created_at";
+
+    // 与 spring.jackson.date-format 一致
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 按 (created_at, id) 顺序导出，走 idx_created_at 索引，不需要排序
+     *
+     * @return 导出的行数
+     * @throws IOException 写响应失败 (通常是客户端断开了连接)
+     */
+    public long export(Filter filter, Format format, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.type() != null) {
+            sql.append(" AND type = ?");
+            args.add(filter.type());
+        }
+        if (filter.userId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.inventoryId() != null) {
+            sql.append(" AND inventory_id = ?");
+            args.add(filter.inventoryId());
+        }
+        sql.append(" ORDER BY created_at, id");
+        try {
+            return jdbcTemplate.execute((ConnectionCallback<Long>) con -> stream(con, sql.toString(), args, format, out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long stream(Connection con, String sql, List<Object> args, Format format, OutputStream out) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL 驱动约定: 只进、只读且 fetchSize 为 Integer.MIN_VALUE 时按行从服务器读取，不会把结果集全部读进内存
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                try {
+                    return format == Format.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+                } catch (IOException e) {
+                    // 客户端断开了连接: 先取消服务器上的查询，否则关闭流式结果集时驱动会把剩余的行全部读完
+                    cancelQuietly(ps);
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        // JsonGenerator 自带缓冲区，写满后才写入响应流；不关闭响应流，由容器负责
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (rs.next()) {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeNumberField("inventoryId", rs.getInt("inventory_id"));
+            json.writeNumberField("userId", rs.getInt("user_id"));
+            json.writeStringField("type", rs.getString("type"));
+            json.writeNumberField("quantityChange", rs.getInt("quantity_change"));
+            json.writeNumberField("quantityAfterTransaction", rs.getInt("quantity_after_transaction"));
+            json.writeStringField("notes", rs.getString("notes"));
+            json.writeStringField("clientScanId", rs.getString("client_scan_id"));
+            json.writeStringField("createdAt", format(rs.getTimestamp("created_at")));
+            json.writeEndObject();
+            json.writeRaw('\n');
+            rows++;
+        }
+        json.close();
+        return rows;
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // UTF-8 BOM，Excel 打开时才能正确识别中文
+        writer.write('\uFEFF');
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (rs.next()) {
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt("inventory_id")));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt("user_id")));
+            writer.write(',');
+            writer.write(csv(rs.getString("type")));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt("quantity_change")));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt("quantity_after_transaction")));
+            writer.write(',');
+            writer.write(csv(rs.getString("notes")));
+            writer.write(',');
+            writer.write(csv(rs.getString("client_scan_id")));
+            writer.write(',');
+            writer.write(csv(format(rs.getTimestamp("created_at"))));
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().format(TIME_FORMAT);
+    }
+
+    /**
+     * RFC 4180: 含逗号、引号或换行的字段用双引号括起来，字段内的双引号写两次。
+     * 以 = + - @ 开头的文本前加单引号，避免 Excel 把备注等内容当作公式执行
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void cancelQuietly(PreparedStatement ps) {
+        try {
+            ps.cancel();
+        } catch (SQLException ignored) {
+            // 连接可能已经不可用，关闭结果集时会一并处理
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graduation.entity.TransactionLogs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异动日志的本地追加式日志文件 (journal)
+ * 异步写入模式下，每条异动日志在所属事务提交之前 (beforeCommit) 追加到这个文件，事务回滚时追加一条作废标记，
+ * 事务提交后才进入内存缓冲区，后台线程写库成功后再推进提交标记。应用崩溃重启后，既没有提交标记也没有作废标记的记录会被重新写库。
+ * 事务的提交顺序与序号不一定一致，所以提交标记只推进到 "之前的记录都已写库或作废" 的最大序号。
+ *
+ * 文件格式为每行一条记录:
+ * E	{"seq":1,"inventoryId":1001,...}   异动日志
+ * A	2                                   序号为 2 的记录所属事务已回滚，不写库
+ * C	1                                   序号 <= 1 的记录都已写入数据库 (或作废)
+ *
+ * 无法写入数据库的记录 (例如外键指向的批次已被删除) 隔离到同目录的 .quarantine 文件中，需要人工处理。
+ */
+public class LedgerJournal {
+
+    private static final String ENTRY = "E\t";
+    private static final String COMMIT = "C\t";
+    private static final String ABORT = "A\t";
+    private static final String QUARANTINE_SUFFIX = ".quarantine";
+
+    private final Path file;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private long lastAppendedSeq;
+    private long lastCommittedSeq;
+
+    /**
+     * 已追加、还没有写库也没有作废的序号
+     */
+    private final TreeSet<Long> unsettled = new TreeSet<>();
+
+    public LedgerJournal(Path file, boolean fsync, ObjectMapper objectMapper) {
+        this.file = file;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 读取 journal 中还没有提交标记、也没有作废的记录，并打开文件准备追加
+     *
+     * @return 需要重新写库的异动日志，按序号升序
+     */
+    public List<Record> open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        List<Record> records = new ArrayList<>();
+        long committed = 0;
+        Set<Long> aborted = new HashSet<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(ENTRY)) {
+                        try {
+                            records.add(objectMapper.readValue(line.substring(ENTRY.length()), Record.class));
+                        } catch (IOException e) {
+                            // 崩溃时最后一行可能只写了一半，忽略即可：这条记录对应的请求不会收到成功响应
+                        }
+                    } else if (line.startsWith(COMMIT)) {
+                        try {
+                            committed = Math.max(committed, Long.parseLong(line.substring(COMMIT.length()).trim()));
+                        } catch (NumberFormatException e) {
+                            // 同上，忽略写了一半的提交标记，最多导致部分记录被重复写库 (由唯一索引去重)
+                        }
+                    } else if (line.startsWith(ABORT)) {
+                        try {
+                            aborted.add(Long.parseLong(line.substring(ABORT.length()).trim()));
+                        } catch (NumberFormatException e) {
+                            // 写了一半的作废标记: 事务已经回滚，但这条记录会被当作已提交重放
+                        }
+                    }
+                }
+            }
+        }
+        final long committedSeq = committed;
+        // 作废的记录也要参与计算最大序号，保证重启后的序号不会回退
+        long maxSeq = records.stream().mapToLong(Record::seq).max().orElse(committedSeq);
+        records.removeIf(r -> r.seq() <= committedSeq || aborted.contains(r.seq()));
+        lastCommittedSeq = committedSeq;
+        lastAppendedSeq = Math.max(maxSeq, committedSeq);
+        unsettled.clear();
+        records.forEach(r -> unsettled.add(r.seq()));
+        boolean partialLastLine = false;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                reader.read(last, reader.size() - 1);
+                partialLastLine = last.get(0) != '\n';
+            }
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (partialLastLine) {
+            write("\n"); // 补齐崩溃时写了一半的最后一行
+        }
+        return records;
+    }
+
+    /**
+     * 分配序号并追加一条异动日志
+     */
+    public Record append(TransactionLogs log) {
+        lock.lock();
+        try {
+            Record record = Record.of(lastAppendedSeq + 1, log);
+            write(ENTRY + objectMapper.writeValueAsString(record) + "\n");
+            lastAppendedSeq = record.seq();
+            unsettled.add(record.seq());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入异动日志 journal 失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 追加作废标记: 记录所属的事务已回滚，重启后不再重放
+     */
+    public void markAborted(Collection<Record> records) {
+        lock.lock();
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (Record record : records) {
+                lines.append(ABORT).append(record.seq()).append('\n');
+            }
+            write(lines.toString());
+            settle(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入异动日志 journal 作废标记失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录已写入数据库；之前的记录都已写库或作废时推进提交标记，全部完成时截断文件，避免 journal 无限增长
+     */
+    public void markCommitted(Collection<Record> records) {
+        lock.lock();
+        try {
+            settle(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入异动日志 journal 提交标记失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把无法写入数据库的记录隔离到 .quarantine 文件 (连同错误原因)，并从 journal 中移除，不再阻塞后续记录
+     */
+    public void quarantine(Record record, String reason) {
+        lock.lock();
+        try {
+            String line = objectMapper.writeValueAsString(record) + "\t" + reason.replace('\n', ' ') + "\n";
+            Files.writeString(quarantineFile(), line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            settle(List.of(record));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入异动日志隔离文件失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path quarantineFile() {
+        return file.resolveSibling(file.getFileName() + QUARANTINE_SUFFIX);
+    }
+
+    private void settle(Collection<Record> records) throws IOException {
+        for (Record record : records) {
+            unsettled.remove(record.seq());
+        }
+        long watermark = unsettled.isEmpty() ? lastAppendedSeq : unsettled.first() - 1;
+        if (watermark <= lastCommittedSeq) {
+            return;
+        }
+        lastCommittedSeq = watermark;
+        if (unsettled.isEmpty()) {
+            // 截断后仍会写入一条提交标记，保证重启后的序号不会回退
+            channel.truncate(0);
+        }
+        write(COMMIT + lastCommittedSeq + "\n");
+    }
+
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastAppendedSeq() {
+        return lastAppendedSeq;
+    }
+
+    public long getLastCommittedSeq() {
+        return lastCommittedSeq;
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // 不强制刷盘时数据在操作系统页缓存中，进程崩溃不会丢失；strict 场景可以开启 fsync
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * journal 中的一条异动日志
+     */
+    public record Record(long seq, Integer inventoryId, Integer userId, String type, Integer quantityChange,
+                         Integer quantityAfterTransaction, String notes, String clientScanId, LocalDateTime createdAt) {
+
+        static Record of(long seq, TransactionLogs log) {
+            return new Record(seq, log.getInventoryId(), log.getUserId(), log.getType(), log.getQuantityChange(),
+                    log.getQuantityAfterTransaction(), log.getNotes(), log.getClientScanId(), log.getCreatedAt());
+        }
+
+        TransactionLogs toLog() {
+            TransactionLogs log = new TransactionLogs();
+            log.setInventoryId(inventoryId);
+            log.setUserId(userId);
+            log.setType(type);
+            log.setQuantityChange(quantityChange);
+            log.setQuantityAfterTransaction(quantityAfterTransaction);
+            log.setNotes(notes);
+            log.setClientScanId(clientScanId);
+            log.setCreatedAt(createdAt);
+            return log;
+        }
+    }
+}
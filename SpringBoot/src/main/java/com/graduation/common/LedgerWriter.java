@@ -0,0 +1,371 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graduation.entity.TransactionLogs;
+import com.graduation.repository.TransactionLogsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异动日志 (transaction_logs) 写入器
+ *
+ * ledger.mode=sync  (默认) 在请求事务内同步插入，适合严格审计的部署。
+ * ledger.mode=async 事务提交前先追加到本地 journal 文件 (回滚时追加作废标记)，提交后再放入内存环形缓冲区，
+ *                   由后台线程按 "每 N 条或每 M 毫秒" 合并成一条多行 INSERT 写库 (group commit)。
+ *                   异步模式下每条日志都会带一个 client_scan_id (客户端未提供时由服务端生成)，
+ *                   崩溃后从 journal 重放时依靠唯一索引去重，保证不丢也不重。
+ *                   日志写库之前唯一索引还挡不住重复提交，期间扫码ID固定在 ScanIdempotencyCache 中，写库成功后才移除。
+ */
+@Component
+public class LedgerWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerWriter.class);
+
+    private static final String INSERT_PREFIX = "INSERT INTO transaction_logs "
+            + "(inventory_id, user_id, type, quantity_change, quantity_after_transaction, notes, client_scan_id, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SQL = INSERT_PREFIX + ROW_PLACEHOLDER;
+    private static final String ON_DUPLICATE_IGNORE = " ON DUPLICATE KEY UPDATE id = id";
+    private static final String JOURNAL_FILE = "transaction_logs.journal";
+
+    @Autowired
+    private TransactionLogsRepository transactionLogsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private ScanIdempotencyCache idempotencyCache;
+
+    @Value("${ledger.mode:sync}")
+    private String mode;
+
+    @Value("${ledger.async.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${ledger.async.group-size:200}")
+    private int groupSize;
+
+    @Value("${ledger.async.group-commit-ms:20}")
+    private long groupCommitMs;
+
+    @Value("${ledger.journal.dir:ledger-journal}")
+    private String journalDir;
+
+    @Value("${ledger.journal.fsync:false}")
+    private boolean journalFsync;
+
+    private LedgerJournal journal;
+    private BlockingQueue<LedgerJournal.Record> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path journalFile = Paths.get(journalDir, JOURNAL_FILE);
+        if (!isAsync() && !Files.exists(journalFile)) {
+            return;
+        }
+        journal = new LedgerJournal(journalFile, journalFsync, objectMapper);
+        List<LedgerJournal.Record> unpersisted = journal.open();
+        if (!unpersisted.isEmpty()) {
+            logger.info("从 journal 恢复 {} 条尚未写库的异动日志", unpersisted.size());
+        }
+        if (!isAsync()) {
+            // 同步模式下只需要把上次异步运行遗留的记录补写进数据库
+            if (!unpersisted.isEmpty()) {
+                persist(unpersisted, true);
+                journal.markCommitted(unpersisted);
+            }
+            return;
+        }
+        for (LedgerJournal.Record record : unpersisted) {
+            idempotencyCache.pinUntilPersisted(record.toLog());
+        }
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        writerThread = new Thread(() -> runWriter(unpersisted), "ledger-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isAsync() {
+        return "async".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * 写入一条异动日志
+     *
+     * @return 同步模式下返回已保存 (带主键) 的日志；异步模式下主键为空
+     */
+    public TransactionLogs write(TransactionLogs log) {
+        if (!isAsync()) {
+            entityVersions.bumpAfterCommit(TransactionLogs.class);
+            return transactionLogsRepository.save(log);
+        }
+        enqueueAfterCommit(List.of(log));
+        return log;
+    }
+
+    /**
+     * 写入一批异动日志，同步模式下使用 JDBC 批处理
+     */
+    public void writeAll(List<TransactionLogs> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (!isAsync()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (ps, log) -> {
+                ps.setInt(1, log.getInventoryId());
+                ps.setInt(2, log.getUserId());
+                ps.setString(3, log.getType());
+                ps.setInt(4, log.getQuantityChange());
+                ps.setInt(5, log.getQuantityAfterTransaction());
+                ps.setString(6, log.getNotes());
+                ps.setString(7, log.getClientScanId());
+                ps.setTimestamp(8, Timestamp.valueOf(log.getCreatedAt()));
+            });
+            entityVersions.bumpAfterCommit(TransactionLogs.class);
+            return;
+        }
+        enqueueAfterCommit(logs);
+    }
+
+    /**
+     * 事务提交前追加到 journal (写 journal 失败时整个事务回滚)，回滚时追加作废标记；
+     * 只有库存更新的事务提交成功后，对应的异动日志才进入缓冲区。
+     * 提交前追加保证事务提交后进程崩溃也不会丢失日志；提交过程中崩溃时，journal 中可能多出一条未作废的记录。
+     * 客户端提供的扫码ID在 afterCommit 时固定，早于 afterCompletion 中释放的事务内占用 (reserveForTransaction)，中间没有空档。
+     */
+    private void enqueueAfterCommit(List<TransactionLogs> logs) {
+        List<TransactionLogs> scans = new ArrayList<>(logs.size());
+        for (TransactionLogs log : logs) {
+            if (log.getClientScanId() == null) {
+                log.setClientScanId("L-" + UUID.randomUUID());
+            } else {
+                scans.add(log);
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<LedgerJournal.Record> records = append(logs);
+            scans.forEach(idempotencyCache::pinUntilPersisted);
+            enqueue(records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private List<LedgerJournal.Record> records;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                records = append(logs);
+            }
+
+            @Override
+            public void afterCommit() {
+                scans.forEach(idempotencyCache::pinUntilPersisted);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (records == null) {
+                    return; // 回滚发生在 beforeCommit 之前，journal 中没有记录
+                }
+                if (status == STATUS_ROLLED_BACK) {
+                    journal.markAborted(records);
+                } else {
+                    // 提交成功; 状态未知时与崩溃后重放一致，按已提交处理 (由唯一索引去重)，此时没有回调 afterCommit
+                    scans.forEach(idempotencyCache::pinUntilPersisted);
+                    enqueue(records);
+                }
+            }
+        });
+    }
+
+    private List<LedgerJournal.Record> append(List<TransactionLogs> logs) {
+        List<LedgerJournal.Record> records = new ArrayList<>(logs.size());
+        try {
+            for (TransactionLogs log : logs) {
+                records.add(journal.append(log));
+            }
+        } catch (RuntimeException e) {
+            // 事务会因此回滚，已经追加的记录要作废
+            if (!records.isEmpty()) {
+                journal.markAborted(records);
+            }
+            throw e;
+        }
+        return records;
+    }
+
+    private void enqueue(List<LedgerJournal.Record> records) {
+        for (LedgerJournal.Record record : records) {
+            try {
+                buffer.put(record); // 缓冲区满时阻塞，形成背压
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                persist(List.of(record), false);
+                settle(List.of(record));
+            }
+        }
+    }
+
+    /**
+     * @param replay 上次运行遗留在 journal 中的记录，先于缓冲区中的记录写库
+     */
+    private void runWriter(List<LedgerJournal.Record> replay) {
+        try {
+            for (int from = 0; from < replay.size(); from += groupSize) {
+                List<LedgerJournal.Record> batch = replay.subList(from, Math.min(from + groupSize, replay.size()));
+                if (!persistWithRetry(batch, true)) {
+                    return;
+                }
+                settle(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<LedgerJournal.Record> batch = new ArrayList<>(groupSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                LedgerJournal.Record first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 凑满 groupSize 条或等待 groupCommitMs 毫秒后一起提交
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupCommitMs);
+                while (batch.size() < groupSize) {
+                    buffer.drainTo(batch, groupSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= groupSize || remaining <= 0) {
+                        break;
+                    }
+                    LedgerJournal.Record next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (persistWithRetry(batch, false)) {
+                    settle(batch);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("异动日志后台写入线程异常", e);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 数据库不可用时持续重试；应用关闭时放弃，记录仍保留在 journal 中，下次启动时重放
+     */
+    private boolean persistWithRetry(List<LedgerJournal.Record> batch, boolean replay) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                persist(batch, replay);
+                entityVersions.bump(TransactionLogs.class);
+                return true;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    logger.error("应用关闭时异动日志写库失败，{} 条记录保留在 journal 中", batch.size(), e);
+                    return false;
+                }
+                logger.warn("异动日志写库失败，第 {} 次重试", attempt, e);
+                Thread.sleep(Math.min(attempt * 1000L, 10_000L));
+            }
+        }
+    }
+
+    /**
+     * 写库 (或隔离) 完成: 推进 journal 的提交标记，之后由唯一索引识别重复提交
+     */
+    private void settle(List<LedgerJournal.Record> records) {
+        journal.markCommitted(records);
+        for (LedgerJournal.Record record : records) {
+            idempotencyCache.unpin(record.clientScanId());
+        }
+    }
+
+    /**
+     * 多行 INSERT 写库。
+     * 只有重放 journal 时 (崩溃前可能已经写库) 才用 ON DUPLICATE KEY 跳过已存在的行；正常写入时 client_scan_id 冲突
+     * 说明同一次扫码的库存变化被执行了两次，库存与日志已经对不上，不能悄悄丢弃。
+     * 整批因数据完整性错误失败时逐条写入，仍然无法写入的记录 (包括上面的重复记录) 移到 journal 的隔离文件中并记录错误日志，
+     * 避免一条坏数据阻塞整个缓冲区。
+     */
+    private void persist(List<LedgerJournal.Record> records, boolean replay) {
+        try {
+            insertRows(records, replay);
+        } catch (DataIntegrityViolationException e) {
+            for (LedgerJournal.Record record : records) {
+                try {
+                    insertRows(List.of(record), replay);
+                } catch (DataIntegrityViolationException rowError) {
+                    journal.quarantine(record, String.valueOf(rowError.getMostSpecificCause().getMessage()));
+                    logger.error("异动日志无法写入数据库，已隔离到 {}: {}", journal.quarantineFile(), record, rowError);
+                }
+            }
+        }
+    }
+
+    private void insertRows(List<LedgerJournal.Record> records, boolean replay) {
+        StringJoiner rows = new StringJoiner(", ", INSERT_PREFIX, replay ? ON_DUPLICATE_IGNORE : "");
+        List<Object> args = new ArrayList<>(records.size() * 8);
+        for (LedgerJournal.Record record : records) {
+            rows.add(ROW_PLACEHOLDER);
+            args.add(record.inventoryId());
+            args.add(record.userId());
+            args.add(record.type());
+            args.add(record.quantityChange());
+            args.add(record.quantityAfterTransaction());
+            args.add(record.notes());
+            args.add(record.clientScanId());
+            args.add(Timestamp.valueOf(record.createdAt()));
+        }
+        jdbcTemplate.update(rows.toString(), args.toArray());
+    }
+}
@@ -0,0 +1,158 @@
+package com.graduation.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 线程安全的有界 LRU 缓存
+ * 超过容量时淘汰最久未访问的条目，并记录命中 / 未命中 / 淘汰次数。
+ * 可选的 TTL: 条目写入超过 ttlMillis 后视为过期，读取时按未命中处理。
+ * 使用 ReentrantLock 而不是 synchronized，避免在虚拟线程上发生 pinning。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Node<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public LruCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * @param maxSize   最大条目数
+     * @param ttlMillis 条目的存活时间 (毫秒)，0 表示不过期
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true: get 操作会把条目移动到链表尾部
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 读取缓存，会计入命中率统计
+     */
+    public V get(K key) {
+        V value = peek(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 读取缓存，不计入命中率统计 (用于加载前的二次检查)
+     */
+    public V peek(K key) {
+        lock.lock();
+        try {
+            Node<V> node = map.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.isExpired()) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        lock.lock();
+        try {
+            map.put(key, new Node<>(value, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        lock.lock();
+        try {
+            Node<V> node = map.remove(key);
+            return node == null ? null : node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private record Node<V>(V value, long expiresAt) {
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
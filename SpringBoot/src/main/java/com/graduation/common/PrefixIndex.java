@@ -0,0 +1,152 @@
+package com.graduation.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 内存中的有序前缀索引，用于批次号 / SKU 的输入自动补全
+ * 键统一转为小写 (与 MySQL 大小写不敏感的排序规则一致)，值保留原始写法；
+ * 查询时从前缀所在位置顺序取出前 N 个，复杂度为 O(log n + N)。
+ *
+ * 读取不加锁；增删在同一把锁内执行。全量重建时先开始记录增删，再从数据库加载，
+ * 发布新索引之前把加载期间记录的增删按顺序重放一遍，不会被加载时读到的旧数据覆盖。
+ */
+public class PrefixIndex {
+
+    private volatile ConcurrentSkipListMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 同一时间只进行一次全量重建
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 重建期间发生的增删，不在重建时为 null (由 lock 保护)
+     */
+    private List<Change> changesDuringRebuild;
+
+    public void add(String value) {
+        if (value != null && !value.isBlank()) {
+            apply(new Change(value, true));
+        }
+    }
+
+    public void remove(String value) {
+        if (value != null) {
+            apply(new Change(value, false));
+        }
+    }
+
+    /**
+     * 值被修改时先删除旧值再加入新值
+     */
+    public void replace(String oldValue, String newValue) {
+        lock.lock();
+        try {
+            if (oldValue != null && !oldValue.equalsIgnoreCase(newValue)) {
+                remove(oldValue);
+            }
+            add(newValue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 用数据库中的完整数据重建索引，构建完成后整体替换
+     *
+     * @param loader 从数据库加载全部值，在开始记录增删之后调用
+     */
+    public void rebuild(Supplier<? extends Collection<String>> loader) {
+        rebuildLock.lock();
+        try {
+            lock.lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                ConcurrentSkipListMap<String, String> rebuilt = new ConcurrentSkipListMap<>();
+                for (String value : loader.get()) {
+                    if (value != null && !value.isBlank()) {
+                        rebuilt.put(key(value), value);
+                    }
+                }
+                lock.lock();
+                try {
+                    changesDuringRebuild.forEach(change -> change.applyTo(rebuilt));
+                    entries = rebuilt;
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                lock.lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @return 以 prefix 开头 (忽略大小写) 的前 limit 个值，按字典序排列
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return result;
+        }
+        String from = key(prefix.trim());
+        for (Map.Entry<String, String> entry : entries.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(from) || result.size() >= limit) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void apply(Change change) {
+        lock.lock();
+        try {
+            change.applyTo(entries);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Change(String value, boolean added) {
+
+        void applyTo(Map<String, String> target) {
+            if (added) {
+                target.put(key(value), value);
+            } else {
+                target.remove(key(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.graduation.common;
+
+import com.graduation.entity.Products;
+import com.graduation.repository.ProductsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 产品主数据缓存，按 ID 和 SKU 两种键查询同一份缓存条目
+ * 产品数据一天只变化几次，但几乎每次库存查询都要用到。
+ * JPA (ProductsRepository) 和 MyBatis-Plus (ProductsService) 两条访问路径共用这一份缓存，
+ * ProductsService 的增删改会失效对应条目；条目另有 TTL，兜底直接改库等绕过服务层的修改。
+ */
+@Component
+public class ProductCache {
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    private final LruCache<Integer, Products> byId;
+
+    /**
+     * SKU -> 产品ID，读取时再到 byId 中取实际的条目
+     */
+    private final LruCache<String, Integer> skuToId;
+
+    /**
+     * 每次失效加一；加载前后的值不同说明加载期间发生过修改，加载结果不再放入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(@Value("${product.cache.size:5000}") int size,
+                        @Value("${product.cache.ttl-ms:600000}") long ttlMs) {
+        this.byId = new LruCache<>(size, ttlMs);
+        this.skuToId = new LruCache<>(size, ttlMs);
+    }
+
+    /**
+     * @return 产品信息的副本，不存在时返回 null
+     */
+    public Products getById(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        Products cached = byId.get(id);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        long loadedAt = generation.get();
+        Products loaded = productsRepository.findById(id).orElse(null);
+        if (loaded != null) {
+            putIfUnchanged(loaded, loadedAt);
+        }
+        return loaded == null ? null : copyOf(loaded);
+    }
+
+    /**
+     * 批量按 ID 查询：先查缓存，未命中的 ID 用一次 IN 查询加载并放入缓存
+     *
+     * @return ID -> 产品信息的副本，不存在的 ID 不在结果中
+     */
+    public Map<Integer, Products> getAllById(Collection<Integer> ids) {
+        Map<Integer, Products> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : ids) {
+            if (id == null) {
+                continue;
+            }
+            Products cached = byId.get(id);
+            if (cached != null) {
+                found.put(id, copyOf(cached));
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        long loadedAt = generation.get();
+        for (Products loaded : productsRepository.findAllById(misses)) {
+            putIfUnchanged(loaded, loadedAt);
+            found.put(loaded.getId(), copyOf(loaded));
+        }
+        return found;
+    }
+
+    /**
+     * @return 产品信息的副本，不存在时返回 null
+     */
+    public Products getBySku(String sku) {
+        if (sku == null) {
+            return null;
+        }
+        Integer id = skuToId.get(skuKey(sku));
+        if (id != null) {
+            Products cached = byId.peek(id);
+            // SKU 可能已经被修改，映射过时的条目按未命中处理
+            if (cached != null && sku.equalsIgnoreCase(cached.getSku())) {
+                return copyOf(cached);
+            }
+        }
+        long loadedAt = generation.get();
+        Products loaded = productsRepository.findBySku(sku).orElse(null);
+        if (loaded != null) {
+            putIfUnchanged(loaded, loadedAt);
+        }
+        return loaded == null ? null : copyOf(loaded);
+    }
+
+    /**
+     * 产品被修改或删除后调用
+     */
+    public void invalidate(Integer id) {
+        generation.incrementAndGet();
+        if (id == null) {
+            return;
+        }
+        Products removed = byId.remove(id);
+        if (removed != null && removed.getSku() != null) {
+            skuToId.remove(skuKey(removed.getSku()));
+        }
+    }
+
+    /**
+     * 无法确定被修改的产品时 (例如按条件批量更新) 清空整个缓存
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.clear();
+        skuToId.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hits = byId.getHits() + skuToId.getHits();
+        long misses = byId.getMisses() + skuToId.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", byId.size());
+        stats.put("skuKeys", skuToId.size());
+        stats.put("maxSize", byId.getMaxSize());
+        stats.put("ttlMs", byId.getTtlMillis());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", byId.getEvictions());
+        stats.put("expirations", byId.getExpirations());
+        return stats;
+    }
+
+    /**
+     * 当前的失效计数；在缓存之外加载产品 (例如 JOIN 查询) 之前读取，加载后传给 putIfUnchanged
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 放入在缓存之外加载的产品；加载期间发生过失效时不放入
+     *
+     * @param loadedAt 加载之前读取的 generation()
+     */
+    public void putIfUnchanged(Products product, long loadedAt) {
+        if (generation.get() != loadedAt) {
+            return;
+        }
+        // 缓存中保存独立的副本，与 JPA 持久化上下文中的托管实体脱离
+        Products copy = copyOf(product);
+        byId.put(copy.getId(), copy);
+        if (copy.getSku() != null) {
+            skuToId.put(skuKey(copy.getSku()), copy.getId());
+        }
+        // 放入缓存的同时发生了失效，撤销刚放入的条目
+        if (generation.get() != loadedAt) {
+            byId.remove(copy.getId());
+        }
+    }
+
+    private static Products copyOf(Products product) {
+        Products copy = new Products();
+        copy.setId(product.getId());
+        copy.setSku(product.getSku());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setCreatedAt(product.getCreatedAt());
+        copy.setUpdatedAt(product.getUpdatedAt());
+        copy.setCreatedBy(product.getCreatedBy());
+        return copy;
+    }
+
+    private static String skuKey(String sku) {
+        // sku 列大小写不敏感
+        return sku.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,373 @@
+package com.graduation.common;
+
+import com.graduation.dto.ProductSearchResponse;
+import com.graduation.entity.Products;
+import com.graduation.repository.ProductsRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 产品名称/描述的全文搜索索引 (内存中的倒排索引)
+ * 文本按字符切成单字和相邻两字 (bigram)，中文不需要分词也能按任意子串命中。
+ * 查询时取各个词的 bigram 倒排表求交集得到候选，再校验候选是否真的包含查询词 (bigram 都出现不代表连续出现)，
+ * 最后按命中位置打分排序。
+ * 启动时全量构建，ProductsService 的增删改同步更新单个产品；另外定时全量重建，兜底绕过服务层直接改库的情况。
+ * 全量重建在锁外从数据库加载并构建新索引，期间被单个更新改动过的产品ID记为脏数据，
+ * 发布新索引前在锁内按当前索引中的最新版本修正这些产品，不会被加载时读到的旧数据覆盖。
+ */
+@Component
+public class ProductSearchIndex {
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    /**
+     * 单页的最大条数
+     */
+    @Value("${product.search.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * 产品ID -> 建索引时的文本
+     */
+    private volatile Map<Integer, Doc> docs = new ConcurrentHashMap<>();
+
+    /**
+     * gram -> 包含该 gram 的产品ID
+     */
+    private volatile Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * 单个产品的更新和全量重建的发布串行执行；读操作不加锁，候选会再和 docs 校验一遍
+     * 使用 ReentrantLock 而不是 synchronized，避免在虚拟线程上发生 pinning
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 同一时间只进行一次全量重建
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 全量重建期间被单个更新改动过的产品ID，不在重建时为 null (由 writeLock 保护)
+     */
+    private Set<Integer> dirtyDuringRebuild;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${product.search.rebuild-ms:600000}", fixedDelayString = "${product.search.rebuild-ms:600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                dirtyDuringRebuild = new HashSet<>();
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                Map<Integer, Doc> newDocs = new ConcurrentHashMap<>();
+                Map<String, Set<Integer>> newPostings = new ConcurrentHashMap<>();
+                for (Products product : productsRepository.findAll()) {
+                    link(newDocs, newPostings, Doc.of(product));
+                }
+                writeLock.lock();
+                try {
+                    // 加载期间被修改或删除的产品以当前索引中的版本为准
+                    for (Integer id : dirtyDuringRebuild) {
+                        unlink(newDocs, newPostings, id);
+                        Doc current = docs.get(id);
+                        if (current != null) {
+                            link(newDocs, newPostings, current);
+                        }
+                    }
+                    postings = newPostings;
+                    docs = newDocs;
+                } finally {
+                    writeLock.unlock();
+                }
+            } finally {
+                writeLock.lock();
+                try {
+                    dirtyDuringRebuild = null;
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 产品新增或修改后调用，传入修改后的完整记录
+     */
+    public void index(Products product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Doc doc = Doc.of(product);
+            Doc old = docs.put(doc.id(), doc);
+            Set<String> grams = doc.grams();
+            if (old != null) {
+                for (String gram : old.grams()) {
+                    if (!grams.contains(gram)) {
+                        unlink(postings, gram, doc.id());
+                    }
+                }
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(doc.id());
+            }
+            markDirty(doc.id());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 产品删除后调用
+     */
+    public void remove(Integer id) {
+        if (id == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            unlink(docs, postings, id);
+            markDirty(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 按名称和描述搜索产品
+     * 查询串按空白拆成多个词，产品必须包含所有的词 (不区分大小写)。
+     *
+     * @param page 页码，从 1 开始
+     */
+    public ProductSearchResponse search(String query, int page, int size) {
+        page = Math.max(1, page);
+        size = Math.max(1, Math.min(size, maxPageSize));
+        ProductSearchResponse response = new ProductSearchResponse();
+        response.setPage(page);
+        response.setSize(size);
+
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return response;
+        }
+        Map<Integer, Doc> currentDocs = docs;
+        List<Hit> hits = new ArrayList<>();
+        for (Integer id : candidates(terms)) {
+            Doc doc = currentDocs.get(id);
+            if (doc == null) {
+                continue;
+            }
+            int score = doc.score(terms);
+            if (score > 0) {
+                hits.add(new Hit(doc, score));
+            }
+        }
+        // 相关度高的在前；同分时名称短的在前 (更接近查询词)，再按ID保证翻页顺序稳定
+        hits.sort(Comparator.comparingInt(Hit::score).reversed()
+                .thenComparingInt(h -> h.doc().name().length())
+                .thenComparingInt(h -> h.doc().id()));
+
+        response.setTotal(hits.size());
+        int from = (int) Math.min((long) (page - 1) * size, hits.size());
+        int to = Math.min(from + size, hits.size());
+        for (Hit hit : hits.subList(from, to)) {
+            // 返回副本，调用方修改结果不会影响索引
+            response.getItems().add(copyOf(hit.doc().product()));
+        }
+        return response;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", docs.size());
+        stats.put("grams", postings.size());
+        return stats;
+    }
+
+    /**
+     * 所有词的 gram 倒排表的交集；从最短的倒排表开始求交，尽早缩小候选集
+     */
+    private Set<Integer> candidates(List<String> terms) {
+        Map<String, Set<Integer>> currentPostings = postings;
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (String gram : queryGrams(term)) {
+                Set<Integer> ids = currentPostings.get(gram);
+                if (ids == null || ids.isEmpty()) {
+                    return Set.of();
+                }
+                lists.add(ids);
+            }
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void markDirty(Integer id) {
+        if (dirtyDuringRebuild != null) {
+            dirtyDuringRebuild.add(id);
+        }
+    }
+
+    private static void link(Map<Integer, Doc> docs, Map<String, Set<Integer>> postings, Doc doc) {
+        docs.put(doc.id(), doc);
+        for (String gram : doc.grams()) {
+            postings.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(doc.id());
+        }
+    }
+
+    private static void unlink(Map<Integer, Doc> docs, Map<String, Set<Integer>> postings, Integer id) {
+        Doc old = docs.remove(id);
+        if (old != null) {
+            for (String gram : old.grams()) {
+                unlink(postings, gram, id);
+            }
+        }
+    }
+
+    private static void unlink(Map<String, Set<Integer>> postings, String gram, Integer id) {
+        Set<Integer> ids = postings.get(gram);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(gram, ids);
+            }
+        }
+    }
+
+    private static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : normalize(query).split("\\s+")) {
+            if (!term.isEmpty() && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 单字的查询词用单字倒排表，否则用它的所有 bigram
+     */
+    private static Set<String> queryGrams(String term) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (term.length() == 1) {
+            grams.add(term);
+            return grams;
+        }
+        for (int i = 0; i + 1 < term.length(); i++) {
+            grams.add(term.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (String token : text.split("\\s+")) {
+            for (int i = 0; i < token.length(); i++) {
+                grams.add(token.substring(i, i + 1));
+                if (i + 1 < token.length()) {
+                    grams.add(token.substring(i, i + 2));
+                }
+            }
+        }
+    }
+
+    private static Products copyOf(Products source) {
+        Products copy = new Products();
+        copy.setId(source.getId());
+        copy.setSku(source.getSku());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setCreatedBy(source.getCreatedBy());
+        return copy;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Hit(Doc doc, int score) {
+    }
+
+    /**
+     * 建索引时的产品快照；product 是与调用方脱离的副本，搜索时再复制一份返回
+     */
+    private record Doc(Integer id, Products product, String name, String description) {
+
+        static Doc of(Products source) {
+            Products copy = copyOf(source);
+            return new Doc(copy.getId(), copy, normalize(copy.getName()), normalize(copy.getDescription()));
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(name, grams);
+            addGrams(description, grams);
+            return grams;
+        }
+
+        /**
+         * 每个词都必须出现在名称或描述中，否则返回 0
+         * 名称中命中比描述中命中权重高，名称以查询词开头、与查询词完全相同再加分
+         */
+        int score(List<String> terms) {
+            int score = 0;
+            for (String term : terms) {
+                int nameAt = name.indexOf(term);
+                int descriptionAt = description.indexOf(term);
+                if (nameAt < 0 && descriptionAt < 0) {
+                    return 0;
+                }
+                if (nameAt >= 0) {
+                    score += 10;
+                    if (nameAt == 0) {
+                        score += 5;
+                    }
+                    if (name.equals(term)) {
+                        score += 10;
+                    }
+                }
+                if (descriptionAt >= 0) {
+                    score += 3;
+                }
+            }
+            return score;
+        }
+    }
+}
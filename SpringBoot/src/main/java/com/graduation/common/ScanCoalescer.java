@@ -0,0 +1,189 @@
+package com.graduation.common;
+
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanTicket;
+import com.graduation.service.ScanService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 扫码合并器
+ * 同一用户在合并窗口内对同一批次的连续扫码 (同一方向) 会被累加，
+ * 窗口结束后只执行一次库存更新并写入一条异动日志。
+ * scan.coalesce.window-ms 为 0 时关闭合并，所有扫码都立即执行。
+ * 合并后的异动日志使用新生成的窗口ID，窗口内每一个 clientScanId 都写入 scan_receipts (见 ScanService.scanCoalesced)。
+ * 每次扫码受理时返回一张 ticket，窗口提交后在 ticket 上登记该次扫码的结果 (包括库存不足和写库异常)。
+ */
+@Component
+public class ScanCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanCoalescer.class);
+
+    @Autowired
+    private ScanService scanService;
+
+    @Autowired
+    private ScanTickets scanTickets;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    /**
+     * 合并窗口 (毫秒)，从该批次的第一次扫码开始计时
+     */
+    @Value("${scan.coalesce.window-ms:0}")
+    private long windowMs;
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 还在合并窗口中、尚未提交的 clientScanId
+     */
+    private final Set<String> pendingScanIds = ConcurrentHashMap.newKeySet();
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /**
+     * 把一次扫码放入合并窗口
+     *
+     * @param batchCode 批次唯一编码
+     * @param userId    操作员ID
+     * @param delta     数量变化 (+入库, -出库)
+     * @param clientScanId 客户端扫码ID (幂等键), 可以为空
+     * @return 受理凭证, 窗口提交后可查询结果; 该 clientScanId 已经处理过或正在合并中时返回 null, 本次扫码被忽略
+     */
+    public ScanTicket submit(String batchCode, int userId, int delta, String clientScanId) {
+        if (clientScanId != null) {
+            if (!pendingScanIds.add(clientScanId)) {
+                return null;
+            }
+            // 先查内存缓存，未命中再查异动日志和回执表
+            boolean applied;
+            try {
+                applied = scanService.findApplied(clientScanId) != null;
+            } catch (RuntimeException e) {
+                pendingScanIds.remove(clientScanId);
+                throw e;
+            }
+            if (applied) {
+                pendingScanIds.remove(clientScanId);
+                return null;
+            }
+        }
+        BatchScanRequest.Entry entry = new BatchScanRequest.Entry();
+        entry.setBatchCode(batchCode);
+        entry.setDelta(delta);
+        entry.setClientScanId(clientScanId);
+        ScanTicket ticket = scanTickets.create(1);
+        // batch_code 列大小写不敏感，合并时也按同一批次处理
+        Key key = new Key(batchCode.toLowerCase(Locale.ROOT), userId, delta > 0);
+        pending.compute(key, (k, p) -> {
+            if (p == null) {
+                p = new Pending(batchCode, System.currentTimeMillis() + windowMs);
+            }
+            p.entries.add(entry);
+            p.tickets.add(ticket);
+            return p;
+        });
+        return ticket;
+    }
+
+    /**
+     * 定时提交已经到期的合并窗口
+     */
+    @Scheduled(fixedDelayString = "${scan.coalesce.sweep-ms:50}")
+    public void flushExpired() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flush(System.currentTimeMillis());
+    }
+
+    /**
+     * 应用关闭前提交所有未到期的窗口，避免丢失扫码
+     */
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(long now) {
+        List<Map.Entry<Key, Pending>> due = new ArrayList<>();
+        for (Key key : pending.keySet()) {
+            // 在 computeIfPresent 中移除，与 submit 的 compute 互斥，保证累加不会丢失
+            pending.computeIfPresent(key, (k, p) -> {
+                if (p.deadline > now) {
+                    return p;
+                }
+                due.add(Map.entry(k, p));
+                return null;
+            });
+        }
+        for (Map.Entry<Key, Pending> entry : due) {
+            Key key = entry.getKey();
+            Pending p = entry.getValue();
+            p.tickets.forEach(t -> t.setStatus(ScanTicket.Status.PROCESSING));
+            try {
+                BatchScanResponse response = batchLocks.withLock(p.batchCode, () -> {
+                    try {
+                        return scanService.scanCoalesced(key.userId, p.batchCode, p.entries);
+                    } catch (DataIntegrityViolationException e) {
+                        // 另一个并发请求提交了相同的 clientScanId，窗口已回滚；重试一次，这次会被识别为重复提交
+                        return scanService.scanCoalesced(key.userId, p.batchCode, p.entries);
+                    }
+                });
+                if (response.getFailed() > 0) {
+                    logger.warn("合并扫码提交失败: batchCode={}, userId={}, scans={}, status={}",
+                            p.batchCode, key.userId, response.getFailed(), response.getResults().get(0).getStatus());
+                }
+                for (int i = 0; i < p.tickets.size(); i++) {
+                    scanTickets.complete(p.tickets.get(i), List.of(response.getResults().get(i)), ScanTicket.Status.DONE, null);
+                }
+            } catch (RuntimeException e) {
+                logger.error("合并扫码提交异常: batchCode={}, userId={}, scans={}", p.batchCode, key.userId, p.entries.size(), e);
+                for (ScanTicket ticket : p.tickets) {
+                    scanTickets.complete(ticket, null, ScanTicket.Status.FAILED, "处理失败，请使用相同的 clientScanId 重新提交");
+                }
+            } finally {
+                for (BatchScanRequest.Entry scan : p.entries) {
+                    if (scan.getClientScanId() != null) {
+                        pendingScanIds.remove(scan.getClientScanId());
+                    }
+                }
+            }
+        }
+    }
+
+    private record Key(String batchCode, int userId, boolean inbound) {
+    }
+
+    private static class Pending {
+        private final String batchCode;
+        private final long deadline;
+
+        // 一一对应: 第 i 次扫码的受理凭证是 tickets[i]
+        private final List<BatchScanRequest.Entry> entries = new ArrayList<>();
+        private final List<ScanTicket> tickets = new ArrayList<>();
+
+        private Pending(String batchCode, long deadline) {
+            this.batchCode = batchCode;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.graduation.common;
+
+import com.graduation.entity.TransactionLogs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最近已处理的客户端扫码ID (clientScanId) 缓存
+ * 只是一层内存加速，最终以 transaction_logs.client_scan_id 上的唯一索引 (合并扫码为 scan_receipts 的主键) 为准。
+ */
+@Component
+public class ScanIdempotencyCache {
+
+    private final LruCache<String, TransactionLogs> applied;
+
+    /**
+     * 正在当前节点的事务中处理、尚未提交的扫码ID
+     * 异步写日志时唯一索引要等到后台写库才生效，需要靠它挡住并发的重复提交
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 异步写日志模式下事务已提交、但异动日志还在缓冲区中没有写库的扫码ID
+     * 这段时间内唯一索引还挡不住重复提交，所以不放在会被淘汰的 LRU 中，由 LedgerWriter 写库成功后移除
+     */
+    private final Map<String, TransactionLogs> unpersisted = new ConcurrentHashMap<>();
+
+    public ScanIdempotencyCache(@Value("${scan.idempotency.cache-size:10000}") int cacheSize) {
+        this.applied = new LruCache<>(cacheSize);
+    }
+
+    /**
+     * @return 该扫码ID首次处理时写入的异动日志，未缓存 (也不在尚未写库的日志中) 时返回 null
+     */
+    public TransactionLogs get(String clientScanId) {
+        TransactionLogs log = applied.get(clientScanId);
+        return log != null ? log : unpersisted.get(clientScanId);
+    }
+
+    public void put(String clientScanId, TransactionLogs log) {
+        applied.put(clientScanId, log);
+    }
+
+    /**
+     * 记住一条已提交但尚未写库的异动日志，直到 {@link #unpin(String)}
+     */
+    public void pinUntilPersisted(TransactionLogs log) {
+        unpersisted.put(log.getClientScanId(), log);
+    }
+
+    /**
+     * 异动日志已写入数据库，之后由唯一索引识别重复提交
+     */
+    public void unpin(String clientScanId) {
+        unpersisted.remove(clientScanId);
+    }
+
+    /**
+     * 在当前事务提交成功后再写入缓存，事务回滚时不会留下错误的记录
+     */
+    public void putAfterCommit(String clientScanId, TransactionLogs log) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(clientScanId, log);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(clientScanId, log);
+            }
+        });
+    }
+
+    /**
+     * 在当前事务期间占用一个扫码ID，事务结束 (提交或回滚) 后自动释放
+     *
+     * @return false 表示同一个ID正在被另一个请求处理
+     */
+    public boolean reserveForTransaction(String clientScanId) {
+        if (!inFlight.add(clientScanId)) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.remove(clientScanId);
+            return true;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(clientScanId);
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+package com.graduation.common;
+
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanTicket;
+import com.graduation.service.ScanService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 异步扫码队列
+ * 控制器校验后把扫码放入有界队列并立即返回受理凭证 (ticket)，
+ * 后台工作线程每次取出多张 ticket，按操作员合并成一次批量扫码 (ScanService.scanBatch) 写库。
+ * 队列满时拒绝受理，由控制器返回 429，让客户端退避重试，而不是占满请求线程。
+ */
+@Component
+public class ScanIngestQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanIngestQueue.class);
+
+    @Autowired
+    private ScanService scanService;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    @Autowired
+    private ScanTickets scanTickets;
+
+    @Value("${scan.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${scan.async.workers:4}")
+    private int workerCount;
+
+    /**
+     * 每次合并写库的最大扫码条数，不超过单次批量扫码的上限
+     */
+    @Value("${scan.batch.max-entries:500}")
+    private int batchMaxEntries;
+
+    private BlockingQueue<Job> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "scan-ingest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * 停止受理，处理完队列中剩余的扫码后退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * 受理一次扫码请求
+     *
+     * @return 受理凭证；队列已满或正在停止时返回 null
+     */
+    public ScanTicket submit(BatchScanRequest request) {
+        if (!running) {
+            return null;
+        }
+        ScanTicket ticket = scanTickets.create(request.getEntries().size());
+        if (!queue.offer(new Job(ticket, request))) {
+            scanTickets.discard(ticket);
+            return null;
+        }
+        return ticket;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    private void runWorker() {
+        List<Job> drained = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Job first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                // 每次最多取 batchMaxEntries 张 ticket，process 中再按扫码条数拆分
+                queue.drainTo(drained, batchMaxEntries - 1);
+                process(drained);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("异步扫码工作线程异常", e);
+            } finally {
+                drained.clear();
+            }
+        }
+    }
+
+    /**
+     * 同一操作员的 ticket 合并成一次批量扫码，每次合并不超过 batchMaxEntries 条
+     */
+    private void process(List<Job> jobs) {
+        Map<Integer, List<Job>> byUser = jobs.stream()
+                .collect(Collectors.groupingBy(j -> j.request().getUserId(), LinkedHashMap::new, Collectors.toList()));
+        for (List<Job> userJobs : byUser.values()) {
+            List<Job> group = new ArrayList<>();
+            int size = 0;
+            for (Job job : userJobs) {
+                int entries = job.request().getEntries().size();
+                if (!group.isEmpty() && size + entries > batchMaxEntries) {
+                    apply(group);
+                    group.clear();
+                    size = 0;
+                }
+                group.add(job);
+                size += entries;
+            }
+            if (!group.isEmpty()) {
+                apply(group);
+            }
+        }
+    }
+
+    private void apply(List<Job> group) {
+        BatchScanRequest merged = new BatchScanRequest();
+        merged.setUserId(group.get(0).request().getUserId());
+        merged.setEntries(new ArrayList<>());
+        for (Job job : group) {
+            job.ticket().setStatus(ScanTicket.Status.PROCESSING);
+            merged.getEntries().addAll(job.request().getEntries());
+        }
+        List<String> batchCodes = merged.getEntries().stream()
+                .map(BatchScanRequest.Entry::getBatchCode)
+                .collect(Collectors.toList());
+        try {
+            BatchScanResponse response = batchLocks.withLocks(batchCodes, () -> {
+                try {
+                    return scanService.scanBatch(merged);
+                } catch (DataIntegrityViolationException e) {
+                    // 另一个并发请求提交了相同的 clientScanId，重试一次，这次会被识别为重复提交
+                    return scanService.scanBatch(merged);
+                }
+            });
+            // 把合并后的结果按原来的 ticket 拆分
+            int offset = 0;
+            for (Job job : group) {
+                int entries = job.request().getEntries().size();
+                scanTickets.complete(job.ticket(), response.getResults().subList(offset, offset + entries), ScanTicket.Status.DONE, null);
+                offset += entries;
+            }
+        } catch (RuntimeException e) {
+            logger.error("异步扫码写库失败, {} 张 ticket 标记为失败", group.size(), e);
+            for (Job job : group) {
+                scanTickets.complete(job.ticket(), null, ScanTicket.Status.FAILED, "处理失败，请使用相同的 clientScanId 重新提交");
+            }
+        }
+    }
+
+    private record Job(ScanTicket ticket, BatchScanRequest request) {
+    }
+}
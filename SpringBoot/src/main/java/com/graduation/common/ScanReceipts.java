@@ -0,0 +1,57 @@
+package com.graduation.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合并扫码的扫码ID回执 (scan_receipts 表)
+ * 合并窗口只写一条异动日志，日志上的 client_scan_id 是窗口ID；窗口内每一次扫码的 clientScanId
+ * 都在同一个事务中写入回执表，重复提交时通过回执找到窗口ID，再找到那条异动日志。
+ * client_scan_id 是主键，并发的重复提交只有一个事务能写入成功。
+ */
+@Component
+public class ScanReceipts {
+
+    private static final String INSERT_SQL = "INSERT INTO scan_receipts (client_scan_id, window_scan_id) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 在当前事务中记录窗口内的扫码ID
+     */
+    public void insert(Collection<String> clientScanIds, String windowScanId) {
+        if (clientScanIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(clientScanIds.size());
+        for (String clientScanId : clientScanIds) {
+            rows.add(new Object[]{clientScanId, windowScanId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * @return clientScanId -> 窗口ID，只包含已经记录过回执的扫码ID
+     */
+    public Map<String, String> findWindowScanIds(Collection<String> clientScanIds) {
+        if (clientScanIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(clientScanIds.size(), "?"));
+        Map<String, String> windows = new HashMap<>();
+        jdbcTemplate.query("SELECT client_scan_id, window_scan_id FROM scan_receipts WHERE client_scan_id IN (" + placeholders + ")",
+                rs -> {
+                    windows.put(rs.getString(1), rs.getString(2));
+                }, clientScanIds.toArray());
+        return windows;
+    }
+}
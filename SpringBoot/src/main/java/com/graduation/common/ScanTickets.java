@@ -0,0 +1,94 @@
+package com.graduation.common;
+
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanResult;
+import com.graduation.dto.ScanTicket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 受理凭证 (ticket) 的存放处
+ * 异步扫码队列 (ScanIngestQueue) 和合并扫码 (ScanCoalescer) 受理后都先返回 ticket，
+ * 写库完成后在这里登记结果，客户端通过 GET /scan/tickets/{id} 查询。
+ */
+@Component
+public class ScanTickets {
+
+    /**
+     * 处理完成的 ticket 保留多久 (毫秒)，过期后查询返回 404
+     */
+    @Value("${scan.async.ticket-ttl-ms:600000}")
+    private long ticketTtlMs;
+
+    private final Map<String, ScanTicket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * 登记一张新的 ticket，状态为 QUEUED
+     */
+    public ScanTicket create(int entries) {
+        ScanTicket ticket = new ScanTicket();
+        ticket.setId(UUID.randomUUID().toString());
+        ticket.setEntries(entries);
+        ticket.setStatus(ScanTicket.Status.QUEUED);
+        ticket.setCreatedAt(LocalDateTime.now());
+        tickets.put(ticket.getId(), ticket);
+        return ticket;
+    }
+
+    public ScanTicket get(String id) {
+        return tickets.get(id);
+    }
+
+    /**
+     * 撤销未能受理的 ticket
+     */
+    public void discard(ScanTicket ticket) {
+        tickets.remove(ticket.getId());
+    }
+
+    /**
+     * 登记处理结果
+     *
+     * @param results 该 ticket 对应的每一条扫码结果 (按受理顺序)，处理异常时为 null
+     */
+    public void complete(ScanTicket ticket, List<BatchScanResponse.Result> results, ScanTicket.Status status, String message) {
+        ticket.setResult(results == null ? null : summarize(results));
+        ticket.setMessage(message);
+        ticket.setCompletedAt(LocalDateTime.now());
+        ticket.setStatus(status);
+    }
+
+    /**
+     * 定时清理过期的 ticket
+     */
+    @Scheduled(fixedDelayString = "${scan.async.ticket-sweep-ms:60000}")
+    public void expire() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(ticketTtlMs));
+        tickets.values().removeIf(t -> t.getCompletedAt() != null && t.getCompletedAt().isBefore(cutoff));
+    }
+
+    private BatchScanResponse summarize(List<BatchScanResponse.Result> results) {
+        BatchScanResponse response = new BatchScanResponse();
+        for (int i = 0; i < results.size(); i++) {
+            BatchScanResponse.Result result = results.get(i);
+            result.setIndex(i);
+            response.getResults().add(result);
+            if (result.isDuplicate()) {
+                response.setDuplicates(response.getDuplicates() + 1);
+            } else if (result.getStatus() == ScanResult.Status.OK) {
+                response.setApplied(response.getApplied() + 1);
+            } else {
+                response.setFailed(response.getFailed() + 1);
+            }
+        }
+        return response;
+    }
+}
@@ -0,0 +1,59 @@
+package com.graduation.common;
+
+import com.graduation.repository.InventoryRepository;
+import com.graduation.repository.ProductsRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批次号和 SKU 的前缀索引
+ * 启动时从数据库加载，增删改接口写库成功后同步更新；
+ * 另外定时全量重建一次，兜底绕过接口直接改库的情况 (重建期间的增删由 PrefixIndex 记录并在发布前重放)。
+ */
+@Component
+public class SuggestIndexes {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductsRepository productsRepository;
+
+    /**
+     * 单次返回的最大候选数
+     */
+    @Value("${suggest.max-limit:50}")
+    private int maxLimit;
+
+    private final PrefixIndex batchCodes = new PrefixIndex();
+    private final PrefixIndex skus = new PrefixIndex();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${suggest.rebuild-ms:600000}", fixedDelayString = "${suggest.rebuild-ms:600000}")
+    public void rebuild() {
+        batchCodes.rebuild(inventoryRepository::findAllBatchCodes);
+        skus.rebuild(productsRepository::findAllSkus);
+    }
+
+    public PrefixIndex batchCodes() {
+        return batchCodes;
+    }
+
+    public PrefixIndex skus() {
+        return skus;
+    }
+
+    /**
+     * 把客户端传入的 limit 限制在 [1, maxLimit] 之间
+     */
+    public int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+}
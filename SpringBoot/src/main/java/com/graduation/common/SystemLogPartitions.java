@@ -0,0 +1,171 @@
+package com.graduation.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * system_logs 按月分区的维护
+ * 表按 created_at 做 RANGE 分区 (见 warehouse_db_scheml.sql)，每月一个分区，名称为 p + 年月 (例如 p202611)，
+ * 分区的上界是下个月 1 日零点；最后一个分区 pmax 接收超出已建分区范围的数据。
+ *
+ * 定时任务做两件事：
+ * 1. 提前建好后面 months-ahead 个月的分区 (拆分 pmax)，按时间范围查询时只会访问涉及的月份；
+ *    只有 pmax 为空时拆分才只修改元数据，pmax 中已有数据时拆分会复制这些数据并长时间锁表，
+ *    所以这种情况下只记录警告，由管理员在维护窗口中拆分 (语句见 warehouse_db_scheml.sql)；
+ * 2. retention-months 大于 0 时 (默认 0，永久保留)，删除早于保留期的整月分区，相当于删掉一个文件，不逐行删除，也不产生大事务。
+ * 表尚未分区 (旧库没有执行迁移语句) 时只记录一次警告，不做任何修改。
+ */
+@Component
+public class SystemLogPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(SystemLogPartitions.class);
+
+    private static final String TABLE = "system_logs";
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${system-logs.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    /**
+     * 保留的月数 (含当月)，0 表示不删除
+     */
+    @Value("${system-logs.partition.retention-months:0}")
+    private int retentionMonths;
+
+    /**
+     * 分区 DDL 等待元数据锁的最长时间 (秒)；等不到就放弃，下次再试，不让定时任务线程一直阻塞
+     */
+    @Value("${system-logs.partition.lock-wait-seconds:5}")
+    private int lockWaitSeconds;
+
+    private volatile boolean warnedNotPartitioned;
+    private volatile boolean warnedMaxPartitionNotEmpty;
+
+    @Scheduled(fixedDelayString = "${system-logs.partition.check-ms:21600000}")
+    public void maintain() {
+        List<YearMonth> months = new ArrayList<>();
+        boolean hasMaxPartition = false;
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE);
+        for (String name : names) {
+            if (MAX_PARTITION.equals(name)) {
+                hasMaxPartition = true;
+                continue;
+            }
+            YearMonth month = parse(name);
+            if (month != null) {
+                months.add(month);
+            }
+        }
+        if (!hasMaxPartition || months.isEmpty()) {
+            if (!warnedNotPartitioned) {
+                warnedNotPartitioned = true;
+                logger.warn("{} 未按月分区 (或缺少 {} 分区)，跳过分区维护；迁移语句见 warehouse_db_scheml.sql", TABLE, MAX_PARTITION);
+            }
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        try {
+            addPartitions(months.get(months.size() - 1), current.plusMonths(monthsAhead));
+            if (retentionMonths > 0) {
+                dropPartitions(months, current.minusMonths(retentionMonths - 1L));
+            }
+        } catch (RuntimeException e) {
+            // 通常是等待元数据锁超时，下次定时任务会重试
+            logger.warn("{} 分区维护失败: {}", TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * 从 pmax 中拆出 (latest, target] 之间的月份；只在 pmax 为空 (只修改元数据) 时执行
+     */
+    private void addPartitions(YearMonth latest, YearMonth target) {
+        if (!latest.isBefore(target)) {
+            return;
+        }
+        if (maxPartitionHasRows()) {
+            if (!warnedMaxPartitionNotEmpty) {
+                warnedMaxPartitionNotEmpty = true;
+                logger.warn("{} 的 {} 分区中已有数据 (月份分区只建到 {})，拆分需要复制数据并锁表，"
+                        + "请在维护窗口中手动执行 REORGANIZE PARTITION", TABLE, MAX_PARTITION, latest.format(PARTITION_NAME));
+            }
+            return;
+        }
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(TABLE)
+                .append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+        for (YearMonth month = latest.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            sql.append("PARTITION ").append(month.format(PARTITION_NAME))
+                    .append(" VALUES LESS THAN (UNIX_TIMESTAMP('").append(month.plusMonths(1).atDay(1)).append(" 00:00:00')), ");
+        }
+        sql.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN MAXVALUE)");
+        executeDdl(sql.toString());
+        logger.info("{} 已新建分区至 {}", TABLE, target.format(PARTITION_NAME));
+    }
+
+    /**
+     * 删除早于 oldestKept 的月份分区；至少保留一个月份分区，否则 REORGANIZE 时无从确定下界
+     */
+    private void dropPartitions(List<YearMonth> months, YearMonth oldestKept) {
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < months.size() - 1; i++) {
+            if (months.get(i).isBefore(oldestKept)) {
+                expired.add(months.get(i).format(PARTITION_NAME));
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        executeDdl("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        logger.info("{} 已删除过期分区 {}", TABLE, expired);
+    }
+
+    private boolean maxPartitionHasRows() {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT 1 FROM " + TABLE + " PARTITION (" + MAX_PARTITION + ") LIMIT 1", Integer.class);
+        return !rows.isEmpty();
+    }
+
+    private void executeDdl(String sql) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (Statement statement = con.createStatement()) {
+                statement.execute("SET SESSION lock_wait_timeout = " + lockWaitSeconds);
+                try {
+                    statement.execute(sql);
+                } finally {
+                    // 连接会还回连接池，恢复为全局设置
+                    statement.execute("SET SESSION lock_wait_timeout = DEFAULT");
+                }
+            }
+            return null;
+        });
+    }
+
+    private static YearMonth parse(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.graduation.controller;
+
+import com.graduation.common.EntityVersions;
+import com.graduation.dto.BootstrapResponse;
+import com.graduation.entity.Departments;
+import com.graduation.entity.Products;
+import com.graduation.entity.Roles;
+import com.graduation.service.DepartmentsService;
+import com.graduation.service.ProductsService;
+import com.graduation.service.RolesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 客户端启动数据接口
+ * 把部门、角色和产品目录合并成一个请求返回 (响应由 server.compression 压缩)，代替启动时的多个 /list 请求。
+ * 版本号由各实体的版本号 (EntityVersions) 组成，格式为 "启动时间-部门版本-角色版本-产品版本"。
+ */
+@RestController
+@RequestMapping("/bootstrap")
+public class BootstrapController {
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private DepartmentsService departmentsService;
+
+    @Autowired
+    private RolesService rolesService;
+
+    @Autowired
+    private ProductsService productsService;
+
+    /**
+     * @param since 客户端上次收到的 version；不传、格式不对或服务器已重启时返回全部数据，
+     *              否则只返回版本号发生变化的部分
+     */
+    @GetMapping
+    public ResponseEntity<BootstrapResponse> bootstrap(@RequestParam(value = "since", required = false) String since) {
+        // 先取版本号再查询，查询期间发生的修改最多让客户端下次多拉一次，不会漏掉
+        long departmentsVersion = entityVersions.current(Departments.class);
+        long rolesVersion = entityVersions.current(Roles.class);
+        long productsVersion = entityVersions.current(Products.class);
+        long[] previous = parseSince(since);
+
+        BootstrapResponse response = new BootstrapResponse();
+        response.setVersion(entityVersions.epoch() + "-" + departmentsVersion + "-" + rolesVersion + "-" + productsVersion);
+        if (previous == null || previous[0] != departmentsVersion) {
+            response.setDepartments(departmentsService.list());
+        }
+        if (previous == null || previous[1] != rolesVersion) {
+            response.setRoles(rolesService.list());
+        }
+        if (previous == null || previous[2] != productsVersion) {
+            response.setProducts(productsService.list());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * @return 部门、角色、产品三个版本号；since 不是当前这次启动发出的版本时返回 null
+     */
+    private long[] parseSince(String since) {
+        if (since == null) {
+            return null;
+        }
+        String[] parts = since.split("-");
+        if (parts.length != 4 || !parts[0].equals(entityVersions.epoch())) {
+            return null;
+        }
+        try {
+            return new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
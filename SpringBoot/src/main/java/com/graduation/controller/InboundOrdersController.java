@@ -34,6 +34,8 @@ public class InboundOrdersController extends BaseController<InboundOrdersService
             inboundOrder.setStatus("待处理"); // 设置默认状态为 "待处理"
         }
         InboundOrders createdOrder = inboundOrdersRepository.save(inboundOrder);
+        // 通过 JPA 写入，不经过 MyBatis 插件，需要手动增加版本号
+        entityVersions.bump(InboundOrders.class);
         return ResponseEntity.ok(createdOrder);
     }
 
@@ -63,6 +65,7 @@ public class InboundOrdersController extends BaseController<InboundOrdersService
         // 由于有 @Transactional 注解, 在方法执行完毕后，JPA会自动将更改同步到数据库。
         // 所以显式的 save 调用在某些情况下可以省略，但为了清晰，建议保留。
         inboundOrdersRepository.save(order);
+        entityVersions.bump(InboundOrders.class);
 
         // 操作成功，返回一个 HTTP 200 OK 状态码，且响应体为空
         return ResponseEntity.ok().build();
@@ -1,22 +1,31 @@
 package com.graduation.controller;
 
+import com.graduation.common.BatchLockStripes;
+import com.graduation.common.HotBatchCounters;
+import com.graduation.common.InventoryBatchIndex;
+import com.graduation.common.ProductCache;
+import com.graduation.common.SuggestIndexes;
 import com.graduation.dto.ScanResponse;
 import com.graduation.entity.Inventory;
 import com.graduation.entity.Products;
 import com.graduation.repository.InventoryRepository;
-import com.graduation.repository.ProductsRepository;
 import com.graduation.service.InventoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.graduation.common.BaseController;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * <p>
@@ -34,10 +43,22 @@ public class InventoryController extends BaseController<InventoryService, Invent
     private InventoryRepository inventoryRepository;
 
 
-    // 为了组合数据，我们直接注入 Repository 会更方便
+    // 为了组合数据，产品信息走 ProductCache (按 ID 和 SKU 缓存)
 
     @Autowired
-    private ProductsRepository productsRepository;
+    private ProductCache productCache;
+
+    @Autowired
+    private InventoryBatchIndex inventoryBatchIndex;
+
+    @Autowired
+    private HotBatchCounters hotBatchCounters;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    @Autowired
+    private SuggestIndexes suggestIndexes;
 
 
 
@@ -70,24 +91,27 @@ public class InventoryController extends BaseController<InventoryService, Invent
      */
     @GetMapping("/batch/{batchCode}")
     public ResponseEntity<ScanResponse> getInventoryByBatchCode(@PathVariable String batchCode) {
-        // 1. 根据 batchCode 查询库存
-        Optional<Inventory> inventoryOpt = inventoryRepository.findByBatchCode(batchCode);
+        // 1. 根据 batchCode 查询库存 (优先走进程内的批次索引，未命中时一条 JOIN 查询同时取回库存和产品)
+        Inventory inventory = inventoryBatchIndex.get(batchCode);
 
         // 2. 如果库存不存在，直接返回 404
-        if (inventoryOpt.isEmpty()) {
+        if (inventory == null) {
             return ResponseEntity.notFound().build();
         }
-        Inventory inventory = inventoryOpt.get();
+        // 热点批次的实时数量在内存计数器中
+        HotBatchCounters.Counter counter = hotBatchCounters.get(batchCode);
+        if (counter != null) {
+            inventory.setQuantity(counter.getQuantity());
+        }
 
-        // 3. 根据库存中的 productId 查询关联的产品信息
-        Optional<Products> productOpt = productsRepository.findById(inventory.getProductId());
+        // 3. 根据库存中的 productId 查询关联的产品信息 (ProductCache，索引加载时已放入)
+        Products product = productCache.getById(inventory.getProductId());
 
         // 4. 如果产品不存在（数据不一致的情况），可以返回库存信息但产品为 null，或返回错误
-        if (productOpt.isEmpty()) {
+        if (product == null) {
             // 或者可以返回一个自定义的错误响应
             return ResponseEntity.status(500).body(null); // 表示服务器内部数据错误
         }
-        Products product = productOpt.get();
 
         // 5. 组合成 ScanResponse 并返回
         ScanResponse scanResponse = new ScanResponse(inventory, product);
@@ -103,20 +127,76 @@ public class InventoryController extends BaseController<InventoryService, Invent
      */
     @GetMapping("/sku/{sku}")
     public ResponseEntity<List<Inventory>> getInventoryByProductSku(@PathVariable String sku) {
-        // 1. 首先根据 SKU 找到产品
-        Optional<Products> productOpt = productsRepository.findBySku(sku);
+        // 一条 JOIN 查询按 SKU 取出所有关联的库存记录，产品不存在时返回空列表
+        List<Inventory> inventoryList = inventoryRepository.findByProductSku(sku);
+        return ResponseEntity.ok(inventoryList);
+    }
 
-        // 2. 如果产品不存在，直接返回一个空的列表
-        if (productOpt.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-        Products product = productOpt.get();
+    /**
+     * 批次号输入自动补全，返回以 prefix 开头的前 limit 个批次号
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestBatchCodes(@RequestParam("prefix") String prefix,
+                                                          @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestIndexes.batchCodes().suggest(prefix, suggestIndexes.clampLimit(limit)));
+    }
 
-        // 3. 根据产品的 ID 查询所有关联的库存记录
-        List<Inventory> inventoryList = inventoryRepository.findByProductId(product.getId());
+    /**
+     * 批次索引的命中统计
+     */
+    @GetMapping("/batch-index/stats")
+    public ResponseEntity<Map<String, Object>> batchIndexStats() {
+        return ResponseEntity.ok(inventoryBatchIndex.stats());
+    }
 
-        // 4. 返回查询到的列表
-        return ResponseEntity.ok(inventoryList);
+    // --- 重写增删改方法，在批次锁内写库并失效批次索引 ---
+    @Override
+    @PostMapping
+    public boolean save(@RequestBody Inventory entity) {
+        if (entity.getBatchCode() == null) {
+            return service.save(entity);
+        }
+        boolean success = batchLocks.withLock(entity.getBatchCode(), () -> service.save(entity));
+        inventoryBatchIndex.invalidate(entity.getBatchCode());
+        if (success) {
+            suggestIndexes.batchCodes().add(entity.getBatchCode());
+        }
+        return success;
+    }
+
+    @Override
+    @PutMapping
+    public boolean update(@RequestBody Inventory entity) {
+        // 批次号本身也可能被修改，新旧批次号都需要失效
+        List<String> batchCodes = new ArrayList<>();
+        Inventory oldInventory = entity.getId() == null ? null : service.getById(entity.getId());
+        if (oldInventory != null && oldInventory.getBatchCode() != null) {
+            batchCodes.add(oldInventory.getBatchCode());
+        }
+        if (entity.getBatchCode() != null) {
+            batchCodes.add(entity.getBatchCode());
+        }
+        // 热点批次先刷回并关闭内存计数器，修改后按数据库中的新数量重新加载，后台改的数量不会被计数器覆盖
+        boolean success = hotBatchCounters.suspendWhile(batchCodes, () -> service.updateById(entity));
+        batchCodes.forEach(inventoryBatchIndex::invalidate);
+        if (success && oldInventory != null && entity.getBatchCode() != null) {
+            suggestIndexes.batchCodes().replace(oldInventory.getBatchCode(), entity.getBatchCode());
+        }
+        return success;
     }
 
+    @Override
+    @DeleteMapping("/{id}")
+    public boolean delete(@PathVariable("id") Long id) {
+        Inventory target = service.getById(id);
+        if (target == null || target.getBatchCode() == null) {
+            return service.removeById(id);
+        }
+        boolean success = hotBatchCounters.suspendWhile(List.of(target.getBatchCode()), () -> service.removeById(id));
+        inventoryBatchIndex.invalidate(target.getBatchCode());
+        if (success) {
+            suggestIndexes.batchCodes().remove(target.getBatchCode());
+        }
+        return success;
+    }
 }
@@ -1,11 +1,23 @@
 package com.graduation.controller;
 
+import com.graduation.common.JpaCacheRegions;
+import com.graduation.common.ProductCache;
+import com.graduation.common.ProductSearchIndex;
+import com.graduation.common.SuggestIndexes;
+import com.graduation.dto.ProductSearchResponse;
 import com.graduation.entity.Products;
 import com.graduation.service.ProductsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.graduation.common.BaseController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * <p>
  * 产品主数据表 前端控制器
@@ -18,4 +30,60 @@ import com.graduation.common.BaseController;
 @RequestMapping("/products")
 public class ProductsController extends BaseController<ProductsService, Products> {
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JpaCacheRegions jpaCacheRegions;
+
+    @Autowired
+    private SuggestIndexes suggestIndexes;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    /**
+     * SKU 输入自动补全，返回以 prefix 开头的前 limit 个 SKU
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestSkus(@RequestParam("prefix") String prefix,
+                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestIndexes.skus().suggest(prefix, suggestIndexes.clampLimit(limit)));
+    }
+
+    /**
+     * 按产品名称和描述搜索 (包含查询词即命中，支持中文子串)，按相关度排序并分页
+     * 多个词用空格分隔，产品需要包含所有的词
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> search(@RequestParam("q") String query,
+                                                        @RequestParam(value = "page", defaultValue = "1") int page,
+                                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(productSearchIndex.search(query, page, size));
+    }
+
+    /**
+     * 全文搜索索引的文档数和 gram 数
+     */
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> searchStats() {
+        return ResponseEntity.ok(productSearchIndex.stats());
+    }
+
+    /**
+     * 产品缓存的命中统计
+     * 增删改经过 ProductsService，由服务层失效对应的缓存条目
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    /**
+     * Hibernate 二级缓存和查询缓存的命中统计 (整体及产品相关的区域)
+     */
+    @GetMapping("/cache/l2-stats")
+    public ResponseEntity<Map<String, Object>> secondLevelCacheStats() {
+        return ResponseEntity.ok(jpaCacheRegions.stats());
+    }
 }
@@ -1,108 +1,334 @@
 package com.graduation.controller;
 
+import com.graduation.common.BatchLockStripes;
+import com.graduation.common.HotBatchCounters;
+import com.graduation.common.ScanIngestQueue;
+import com.graduation.common.ScanCoalescer;
+import com.graduation.common.ScanTickets;
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
 import com.graduation.dto.ScanRequest;
-import com.graduation.entity.Inventory;
-import com.graduation.entity.TransactionLogs;
-import com.graduation.repository.InventoryRepository;
-import com.graduation.repository.TransactionLogsRepository;
+import com.graduation.dto.ScanResponse;
+import com.graduation.dto.ScanResult;
+import com.graduation.dto.ScanTicket;
+import com.graduation.service.ScanService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/scan") // 控制器的根路径为 /scan
 public class ScanController {
 
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private ScanService scanService;
 
     @Autowired
-    private TransactionLogsRepository transactionLogsRepository; // 假设你有这个 Repository
+    private ScanCoalescer scanCoalescer;
+
+    @Autowired
+    private BatchLockStripes batchLocks;
+
+    @Autowired
+    private HotBatchCounters hotBatchCounters;
+
+    @Autowired
+    private ScanIngestQueue ingestQueue;
+
+    @Autowired
+    private ScanTickets scanTickets;
+
+    /**
+     * 单次批量扫码允许的最大条目数
+     */
+    @Value("${scan.batch.max-entries:500}")
+    private int batchMaxEntries;
+
+    /**
+     * 异步扫码队列已满时建议客户端等待的秒数
+     */
+    @Value("${scan.async.retry-after-seconds:2}")
+    private int retryAfterSeconds;
 
     /**
      * 扫码入库接口
      * 注意：这里的“入库”逻辑是指对一个【已存在的批次】增加数量，
      * 例如，退货入库或盘点多余的货物重新入库。
      *
-     * @param scanRequest 包含 batchCode 和 userId
-     * @return 成功或失败的响应
+     * @param scanRequest 包含 batchCode、userId，可选 quantity (默认 1)、coalesce 和 clientScanId
+     * @return 成功时返回更新后的库存、所属产品和异动日志ID，客户端无需再查询批次详情；
+     *         合并模式下返回 status = ACCEPTED 和 ticketId，重复提交时 status = DUPLICATE；失败时返回提示信息
      */
     @PostMapping("/inbound")
-    @Transactional // **非常重要**：确保库存更新和日志记录是一个原子操作
-    public ResponseEntity<String> scanInbound(@RequestBody ScanRequest scanRequest) {
-        Optional<Inventory> inventoryOpt = inventoryRepository.findByBatchCode(scanRequest.getBatchCode());
+    public ResponseEntity<?> scanInbound(@RequestBody ScanRequest scanRequest) {
+        if (scanRequest.getBatchCode() == null || scanRequest.getBatchCode().isBlank()) {
+            return ResponseEntity.badRequest().body("批次号不能为空");
+        }
+        int quantity = scanRequest.getQuantity() == null ? 1 : scanRequest.getQuantity();
+        if (quantity <= 0) {
+            return ResponseEntity.badRequest().body("数量必须大于 0");
+        }
+        if (scanRequest.getClientScanId() != null && scanRequest.getClientScanId().length() > 64) {
+            return ResponseEntity.badRequest().body("clientScanId 长度不能超过 64");
+        }
+        int quantityChange = quantity; // 入库数量为正数
 
-        if (inventoryOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body("批次号不存在");
+        // 开启合并时只放入合并窗口，窗口结束后统一更新库存并写一条异动日志
+        if (scanRequest.isCoalesce() && scanCoalescer.isEnabled()) {
+            ScanTicket ticket = scanCoalescer.submit(scanRequest.getBatchCode(), scanRequest.getUserId(), quantityChange, scanRequest.getClientScanId());
+            if (ticket == null) {
+                return ResponseEntity.ok(ScanResponse.duplicate());
+            }
+            // 窗口提交后的结果 (包括库存不足) 通过 ticket 查询
+            return ResponseEntity.accepted()
+                    .location(URI.create("/scan/tickets/" + ticket.getId()))
+                    .body(ScanResponse.accepted(ticket.getId()));
         }
 
-        Inventory inventory = inventoryOpt.get();
-        int quantityChange = 1; // 默认每次扫码入库数量为 1，可以根据需求调整或从请求中获取
+        // 库存更新和日志记录在 ScanService 的同一个事务中完成
+        return scanResponse(applyScan(scanRequest, quantityChange, "扫码入库"));
+    }
+
+    /**
+     * 扫码出库接口
+     * 注意：合并模式下库存是否充足要到窗口提交时才能确定，不足时整个窗口的出库都不会生效，结果登记在返回的 ticket 上。
+     *
+     * @param scanRequest 包含 batchCode、userId，可选 quantity (默认 1)、coalesce 和 clientScanId
+     * @return 成功时返回更新后的库存、所属产品和异动日志ID；失败时返回提示信息
+     */
+    @PostMapping("/outbound")
+    public ResponseEntity<?> scanOutbound(@RequestBody ScanRequest scanRequest) {
+        if (scanRequest.getBatchCode() == null || scanRequest.getBatchCode().isBlank()) {
+            return ResponseEntity.badRequest().body("批次号不能为空");
+        }
+        int quantity = scanRequest.getQuantity() == null ? 1 : scanRequest.getQuantity();
+        if (quantity <= 0) {
+            return ResponseEntity.badRequest().body("数量必须大于 0");
+        }
+        if (scanRequest.getClientScanId() != null && scanRequest.getClientScanId().length() > 64) {
+            return ResponseEntity.badRequest().body("clientScanId 长度不能超过 64");
+        }
+        int quantityChange = -quantity; // 出库数量为负数
 
-        // 1. 更新库存数量
-        int newQuantity = inventory.getQuantity() + quantityChange;
-        inventory.setQuantity(newQuantity);
-        inventoryRepository.save(inventory);
+        if (scanRequest.isCoalesce() && scanCoalescer.isEnabled()) {
+            ScanTicket ticket = scanCoalescer.submit(scanRequest.getBatchCode(), scanRequest.getUserId(), quantityChange, scanRequest.getClientScanId());
+            if (ticket == null) {
+                return ResponseEntity.ok(ScanResponse.duplicate());
+            }
+            // 窗口提交后的结果 (包括库存不足) 通过 ticket 查询
+            return ResponseEntity.accepted()
+                    .location(URI.create("/scan/tickets/" + ticket.getId()))
+                    .body(ScanResponse.accepted(ticket.getId()));
+        }
 
-        // 2. 记录异动日志
-        createTransactionLog(inventory, scanRequest.getUserId(), "入库", quantityChange, newQuantity, "扫码入库");
+        return scanResponse(applyScan(scanRequest, quantityChange, "扫码出库"));
+    }
 
-        return ResponseEntity.ok("入库成功");
+    /**
+     * 批量扫码接口
+     * 手持终端可以把累积的多次扫码一次性提交，所有条目在一个事务中处理，
+     * 单条失败 (批次不存在、库存不足) 只会反映在该条的结果中，不会让整批回滚。
+     *
+     * @param request 包含 userId 和扫码条目列表 {batchCode, delta, clientScanId}
+     * @return 每一条扫码的处理结果
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> scanBatch(@RequestBody BatchScanRequest request) {
+        String error = validateBatch(request);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+        // 先在内存中拿到所有批次对应的分段锁，再开启事务借用数据库连接
+        List<String> batchCodes = request.getEntries().stream()
+                .map(BatchScanRequest.Entry::getBatchCode)
+                .collect(Collectors.toList());
+        BatchScanResponse response = batchLocks.withLocks(batchCodes, () -> {
+            try {
+                return scanService.scanBatch(request);
+            } catch (DataIntegrityViolationException e) {
+                // 另一个并发请求提交了相同的 clientScanId，整批已回滚；
+                // 重试一次，这次那些ID会被识别为重复提交
+                return scanService.scanBatch(request);
+            }
+        });
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * 扫码出库接口
+     * 异步扫码接口
+     * 请求体与批量扫码相同，校验通过后放入队列并立即返回 202 和受理凭证，
+     * 由后台线程合并写库；客户端凭 ticket id 查询结果。队列已满时返回 429 和 Retry-After。
      *
-     * @param scanRequest 包含 batchCode 和 userId
-     * @return 成功或失败的响应
+     * @param request 包含 userId 和扫码条目列表 {batchCode, delta, clientScanId}
+     * @return 受理凭证
      */
-    @PostMapping("/outbound")
-    @Transactional // **非常重要**
-    public ResponseEntity<String> scanOutbound(@RequestBody ScanRequest scanRequest) {
-        Optional<Inventory> inventoryOpt = inventoryRepository.findByBatchCode(scanRequest.getBatchCode());
+    @PostMapping("/async")
+    public ResponseEntity<?> scanAsync(@RequestBody BatchScanRequest request) {
+        String error = validateBatch(request);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+        ScanTicket ticket = ingestQueue.submit(request);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body("服务器繁忙，请稍后重试");
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/scan/tickets/" + ticket.getId()))
+                .body(ticket);
+    }
 
-        if (inventoryOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body("批次号不存在");
+    /**
+     * 查询异步扫码或合并扫码的处理状态
+     */
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<ScanTicket> getTicket(@PathVariable String id) {
+        ScanTicket ticket = scanTickets.get(id);
+        if (ticket == null) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(ticket);
+    }
+
+    /**
+     * 查看扫码分段锁的统计信息 (每个分段的加锁次数、等待次数和等待时间)
+     */
+    @GetMapping("/lock-stats")
+    public ResponseEntity<Map<String, Object>> lockStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("stripes", batchLocks.getStripeCount());
+        body.put("usedStripes", batchLocks.stats());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * 查看当前的热点批次
+     */
+    @GetMapping("/hot")
+    public ResponseEntity<List<String>> hotBatches() {
+        return ResponseEntity.ok(hotBatchCounters.hotBatchCodes());
+    }
 
-        Inventory inventory = inventoryOpt.get();
-        int quantityChange = -1; // 出库数量为负数
+    /**
+     * 把批次标记为热点，之后该批次的扫码只修改内存计数器，库存表定时刷回
+     */
+    @PostMapping("/hot/{batchCode}")
+    public ResponseEntity<String> markHot(@PathVariable String batchCode) {
+        if (!hotBatchCounters.markHot(batchCode)) {
+            return ResponseEntity.badRequest().body("批次号不存在");
+        }
+        return ResponseEntity.ok("已标记为热点批次");
+    }
 
-        // 检查库存是否充足
-        if (inventory.getQuantity() <= 0) {
-            return ResponseEntity.badRequest().body("库存不足，无法出库");
+    /**
+     * 取消热点标记，未刷回的数量会立即写入库存表
+     */
+    @DeleteMapping("/hot/{batchCode}")
+    public ResponseEntity<String> unmarkHot(@PathVariable String batchCode) {
+        if (!hotBatchCounters.unmarkHot(batchCode)) {
+            return ResponseEntity.badRequest().body("该批次不是热点批次");
         }
+        return ResponseEntity.ok("已取消热点标记");
+    }
+
+    /**
+     * 热点批次对账: 比较刷回后的库存数量与异动日志中数量变化之和
+     */
+    @GetMapping("/hot/reconcile")
+    public ResponseEntity<List<Map<String, Object>>> reconcileHot() {
+        return ResponseEntity.ok(hotBatchCounters.reconcile());
+    }
 
-        // 1. 更新库存数量
-        int newQuantity = inventory.getQuantity() + quantityChange;
-        inventory.setQuantity(newQuantity);
-        inventoryRepository.save(inventory);
+    /**
+     * 辅助方法，在批次锁内执行一次扫码并处理并发的重复提交
+     */
+    private ScanResult applyScan(ScanRequest scanRequest, int quantityChange, String notes) {
+        String clientScanId = scanRequest.getClientScanId();
+        try {
+            // 热点批次只修改内存计数器，不需要排队
+            if (hotBatchCounters.isHot(scanRequest.getBatchCode())) {
+                return scanService.scan(scanRequest.getBatchCode(), scanRequest.getUserId(), quantityChange, notes, clientScanId);
+            }
+            // 同一批次的并发扫码先在 JVM 内排队，拿到锁后才借用数据库连接
+            return batchLocks.withLock(scanRequest.getBatchCode(), () ->
+                    scanService.scan(scanRequest.getBatchCode(), scanRequest.getUserId(), quantityChange, notes, clientScanId));
+        } catch (DataIntegrityViolationException e) {
+            // 相同 clientScanId 的并发请求已经先提交，本次事务因唯一索引冲突回滚，返回首次的结果
+            ScanResult previous = clientScanId == null ? null : scanService.findApplied(clientScanId);
+            if (previous == null) {
+                throw e;
+            }
+            return previous;
+        }
+    }
 
-        // 2. 记录异动日志
-        createTransactionLog(inventory, scanRequest.getUserId(), "出库", quantityChange, newQuantity, "扫码出库");
+    /**
+     * 辅助方法，把处理结果转换为响应: 成功时为 ScanResponse (与 /inventory/batch/{batchCode} 的结构相同)，失败时为提示信息
+     */
+    private ResponseEntity<?> scanResponse(ScanResult result) {
+        if (result.getStatus() == ScanResult.Status.PENDING) {
+            // 相同 clientScanId 的首次提交已受理但结果尚未写入；仍返回 JSON 对象，客户端可以统一解析
+            return ResponseEntity.accepted().body(ScanResponse.accepted(null));
+        }
+        if (!result.isOk()) {
+            return ResponseEntity.badRequest().body(errorMessage(result));
+        }
+        Long transactionLogId = result.getTransactionLog() == null ? null : result.getTransactionLog().getId();
+        ScanResponse response = new ScanResponse(result.getInventory(), result.getProduct(), transactionLogId);
+        if (result.isDuplicate()) {
+            response.setStatus(ScanResponse.Status.DUPLICATE);
+        }
+        return ResponseEntity.ok(response);
+    }
 
-        return ResponseEntity.ok("出库成功");
+    /**
+     * 辅助方法，校验批量扫码请求
+     *
+     * @return 错误提示，校验通过时返回 null
+     */
+    private String validateBatch(BatchScanRequest request) {
+        if (request.getUserId() == null || request.getEntries() == null || request.getEntries().isEmpty()) {
+            return "userId 和 entries 不能为空";
+        }
+        if (request.getEntries().size() > batchMaxEntries) {
+            return "单次最多提交 " + batchMaxEntries + " 条扫码记录";
+        }
+        for (BatchScanRequest.Entry entry : request.getEntries()) {
+            if (entry.getClientScanId() != null && entry.getClientScanId().length() > 64) {
+                return "clientScanId 长度不能超过 64";
+            }
+        }
+        return null;
     }
 
     /**
-     * 辅助方法，用于创建异动日志
+     * 辅助方法，把失败的处理结果转换为提示信息
      */
-    private void createTransactionLog(Inventory inventory, int userId, String type, int quantityChange, int quantityAfter, String notes) {
-        TransactionLogs log = new TransactionLogs();
-        log.setInventoryId(inventory.getId());
-        log.setUserId(userId);
-        log.setType(type);
-        log.setQuantityChange(quantityChange);
-        log.setQuantityAfterTransaction(quantityAfter);
-        log.setNotes(notes);
-        log.setCreatedAt(LocalDateTime.now()); // 假设你有这个字段并希望记录当前时间
-        transactionLogsRepository.save(log);
+    private String errorMessage(ScanResult result) {
+        switch (result.getStatus()) {
+            case NOT_FOUND:
+                return "批次号不存在";
+            case INSUFFICIENT_STOCK:
+                return "库存不足，无法出库";
+            default:
+                return "扫码请求不合法";
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,21 @@
 package com.graduation.controller;
 
+import com.graduation.common.KeysetQuery;
+import com.graduation.dto.CursorPage;
 import com.graduation.entity.SystemLogs;
 import com.graduation.service.SystemLogsService;
 import com.graduation.common.BaseController;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @RestController
@@ -16,9 +25,71 @@ public class SystemLogsController extends BaseController<SystemLogsService, Syst
     // 重写 list 方法，按时间倒序排列
     @Override
     @GetMapping("/list")
-    public List<SystemLogs> list() {
-        QueryWrapper<SystemLogs> queryWrapper = new QueryWrapper<>();
+    public List<SystemLogs> list(WebRequest request) {
+        QueryWrapper<SystemLogs> queryWrapper = selectFields(new QueryWrapper<>(), request);
         queryWrapper.orderByDesc("created_at");
-        return service.list(queryWrapper);
+        if (notModified(request)) {
+            return null;
+        }
+        return capped(queryWrapper, request);
     }
-}
\ No newline at end of file
+
+    /**
+     * 按时间范围分页查询，按 (created_at, id) 倒序，最新的在前
+     * 例如: /system-logs/search?from=2026-10-01T00:00:00&action=DELETE_USER&size=50，翻页时带上其余条件和 cursor。
+     * 表按月分区 (见 SystemLogPartitions)，带 from/to 时只访问范围内的月份分区，分区内走 idx_created_at。
+     *
+     * @param from 起始时间 (包含)，查询近期日志时应尽量带上
+     * @param to   结束时间 (不包含)，可省略
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam(value = "from", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(value = "to", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(value = "action", required = false) String action,
+                                    @RequestParam(value = "operatorId", required = false) Integer operatorId,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "size", required = false) Integer size,
+                                    WebRequest request) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().body("from 必须早于 to");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (action != null && !action.isEmpty()) {
+            filters.put("action", action);
+        }
+        if (operatorId != null) {
+            filters.put("operatorId", operatorId.toString());
+        }
+        KeysetQuery<SystemLogs> query;
+        QueryWrapper<SystemLogs> wrapper;
+        try {
+            query = KeysetQuery.of(SystemLogs.class, cursor, KeysetQuery.SORT_CREATED_AT, "desc");
+            // 多查一行，用来判断是否还有下一页
+            wrapper = query.wrapper(filters, pageSize + 1);
+            selectFields(wrapper, request, query.keyColumns());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (from != null) {
+            wrapper.ge("created_at", from);
+        }
+        if (to != null) {
+            wrapper.lt("created_at", to);
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        List<SystemLogs> rows = service.list(wrapper);
+        CursorPage<SystemLogs> page = new CursorPage<>();
+        page.setSize(pageSize);
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            page.setNextCursor(query.cursorAfter(rows.get(pageSize - 1)));
+        }
+        page.setItems(rows);
+        return ResponseEntity.ok(page);
+    }
+}
@@ -1,10 +1,34 @@
 package com.graduation.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.graduation.common.KeysetQuery;
+import com.graduation.common.LedgerExporter;
+import com.graduation.dto.CursorPage;
+import com.graduation.dto.LedgerEntry;
 import com.graduation.entity.TransactionLogs;
 import com.graduation.service.TransactionLogsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.graduation.common.BaseController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -18,4 +42,201 @@ import com.graduation.common.BaseController;
 @RequestMapping("/transaction-logs")
 public class TransactionLogsController extends BaseController<TransactionLogsService, TransactionLogs> {
 
+    private static final Logger logger = LoggerFactory.getLogger(TransactionLogsController.class);
+
+    @Autowired
+    private LedgerExporter ledgerExporter;
+
+    /**
+     * 按条件分页查询异动日志，按 (created_at, id) 排序，默认最新的在前
+     * 例如: /transaction-logs/search?type=出库&userId=3&from=2025-01-01T00:00:00&size=50
+     * 翻页时带上其余条件和上一页返回的 cursor。
+     * 每个等值条件都有以它开头、后接 created_at 的联合索引 (见 warehouse_db_scheml.sql)，
+     * 过滤、排序和翻页都在同一个索引上完成，不需要排序也不会扫描无关的行。
+     *
+     * @param productId 按产品过滤，先通过 inventory.idx_product_id 找到该产品的批次，再走 idx_inventory_created_at
+     * @param from      起始时间 (包含)，可省略
+     * @param to        结束时间 (不包含)，可省略
+     * 支持 fields 参数只返回部分属性，例如 fields=id,type,quantityChange,createdAt (见 FieldSelection)。
+     *
+     * @param order     desc (默认) 或 asc
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam(value = "type", required = false) String type,
+                                    @RequestParam(value = "userId", required = false) Integer userId,
+                                    @RequestParam(value = "inventoryId", required = false) Integer inventoryId,
+                                    @RequestParam(value = "productId", required = false) Integer productId,
+                                    @RequestParam(value = "from", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(value = "to", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(value = "order", defaultValue = "desc") String order,
+                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                    @RequestParam(value = "size", required = false) Integer size,
+                                    WebRequest request) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().body("from 必须早于 to");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (type != null && !type.isEmpty()) {
+            filters.put("type", type);
+        }
+        if (userId != null) {
+            filters.put("userId", userId.toString());
+        }
+        if (inventoryId != null) {
+            filters.put("inventoryId", inventoryId.toString());
+        }
+        KeysetQuery<TransactionLogs> query;
+        QueryWrapper<TransactionLogs> wrapper;
+        try {
+            query = KeysetQuery.of(TransactionLogs.class, cursor, KeysetQuery.SORT_CREATED_AT, order);
+            // 多查一行，用来判断是否还有下一页
+            wrapper = query.wrapper(filters, pageSize + 1);
+            selectFields(wrapper, request, query.keyColumns());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (from != null) {
+            wrapper.ge("created_at", from);
+        }
+        if (to != null) {
+            wrapper.lt("created_at", to);
+        }
+        if (productId != null) {
+            // productId 已由 Spring 转换为整数，可以直接拼进子查询
+            wrapper.inSql("inventory_id", "SELECT id FROM inventory WHERE product_id = " + productId);
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        List<TransactionLogs> rows = service.list(wrapper);
+        CursorPage<TransactionLogs> page = new CursorPage<>();
+        page.setSize(pageSize);
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            page.setNextCursor(query.cursorAfter(rows.get(pageSize - 1)));
+        }
+        page.setItems(rows);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * 某个库存批次的流水，按 id 倒序 (最新的在前) 游标分页
+     * 例如: /transaction-logs/inventory/12?size=50&compact=true，翻页时带上上一页返回的 cursor
+     * 走 idx_inventory_id (inventory_id, id) 索引，每页只读取 size 行，与其他批次的日志数量和翻到第几页无关。
+     * 每一行的 quantity_after_transaction 就是该行之后的结存，按行读取即可得到结存曲线，不需要累加。
+     *
+     * @param compact 为 true 时只返回 id、delta (变动数量)、balance (结存) 和 createdAt，也只查询这几列
+     */
+    @GetMapping("/inventory/{inventoryId}")
+    public ResponseEntity<?> listByInventoryId(@PathVariable("inventoryId") Integer inventoryId,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "size", required = false) Integer size,
+                                               @RequestParam(value = "compact", defaultValue = "false") boolean compact,
+                                               WebRequest request) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        KeysetQuery<TransactionLogs> query;
+        QueryWrapper<TransactionLogs> wrapper;
+        try {
+            query = KeysetQuery.of(TransactionLogs.class, cursor, KeysetQuery.SORT_ID, "desc");
+            // 多查一行，用来判断是否还有下一页
+            wrapper = query.wrapper(Map.of("inventoryId", inventoryId.toString()), pageSize + 1);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (compact) {
+            wrapper.select("id", "quantity_change", "quantity_after_transaction", "created_at");
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        List<TransactionLogs> rows = service.list(wrapper);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = query.cursorAfter(rows.get(pageSize - 1));
+        }
+        if (!compact) {
+            CursorPage<TransactionLogs> page = new CursorPage<>();
+            page.setSize(pageSize);
+            page.setNextCursor(nextCursor);
+            page.setItems(rows);
+            return ResponseEntity.ok(page);
+        }
+        CursorPage<LedgerEntry> page = new CursorPage<>();
+        page.setSize(pageSize);
+        page.setNextCursor(nextCursor);
+        for (TransactionLogs log : rows) {
+            LedgerEntry entry = new LedgerEntry();
+            entry.setId(log.getId());
+            entry.setDelta(log.getQuantityChange());
+            entry.setBalance(log.getQuantityAfterTransaction());
+            entry.setCreatedAt(log.getCreatedAt());
+            page.getItems().add(entry);
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * 导出异动日志 (流式输出，适合导出数月的数据)
+     * 例如: /transaction-logs/export?format=csv&from=2025-01-01T00:00:00&to=2025-04-01T00:00:00&type=出库
+     *
+     * @param format ndjson (默认，每行一个 JSON 对象) 或 csv
+     * @param from   起始时间 (包含)，可省略
+     * @param to     结束时间 (不包含)，可省略
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                    @RequestParam(value = "from", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(value = "to", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(value = "type", required = false) String type,
+                                    @RequestParam(value = "userId", required = false) Integer userId,
+                                    @RequestParam(value = "inventoryId", required = false) Integer inventoryId) {
+        LedgerExporter.Format exportFormat;
+        String contentType;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = LedgerExporter.Format.CSV;
+            contentType = "text/csv;charset=UTF-8";
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = LedgerExporter.Format.NDJSON;
+            contentType = "application/x-ndjson;charset=UTF-8";
+        } else {
+            return badRequest("format 只能是 ndjson 或 csv");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return badRequest("from 必须早于 to");
+        }
+
+        LedgerExporter.Filter filter = new LedgerExporter.Filter(from, to, type, userId, inventoryId);
+        // 在 MVC 的异步线程中执行，查询从这里开始，写完后连接立即归还连接池
+        StreamingResponseBody body = out -> {
+            long start = System.currentTimeMillis();
+            try {
+                long rows = ledgerExporter.export(filter, exportFormat, out);
+                logger.info("异动日志导出完成: {} 行, 耗时 {} ms, 条件 {}", rows, System.currentTimeMillis() - start, filter);
+            } catch (IOException e) {
+                // 客户端中途断开，查询已被取消，不需要再向客户端报告错误
+                logger.info("异动日志导出被客户端中断, 条件 {}", filter);
+            }
+        };
+        String fileName = "transaction_logs_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                + (exportFormat == LedgerExporter.Format.CSV ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * 返回值类型必须是 ResponseEntity&lt;StreamingResponseBody&gt; 才会按流式输出处理，错误信息也以流的形式写出
+     */
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain;charset=UTF-8")
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
 }
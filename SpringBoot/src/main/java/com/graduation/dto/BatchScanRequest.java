@@ -0,0 +1,35 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量扫码请求
+ * {"userId":3,"entries":[{"batchCode":"B001","delta":1,"clientScanId":"a1"},{"batchCode":"B002","delta":-2}]}
+ */
+@Data
+public class BatchScanRequest {
+
+    /**
+     * 执行扫码的操作员
+     */
+    private Integer userId;
+
+    private List<Entry> entries;
+
+    @Data
+    public static class Entry {
+        private String batchCode;
+
+        /**
+         * 数量变化 (+入库, -出库)
+         */
+        private int delta;
+
+        /**
+         * 客户端生成的扫码ID (幂等键), 重复提交的ID不会被再次执行
+         */
+        private String clientScanId;
+    }
+}
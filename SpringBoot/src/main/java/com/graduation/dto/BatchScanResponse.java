@@ -0,0 +1,38 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量扫码响应, 按请求顺序返回每一条扫码的处理结果
+ */
+@Data
+public class BatchScanResponse {
+
+    private int applied;
+    private int duplicates;
+    private int failed;
+    private List<Result> results = new ArrayList<>();
+
+    @Data
+    public static class Result {
+        private int index;
+        private String clientScanId;
+        private String batchCode;
+        private int delta;
+        private ScanResult.Status status;
+
+        /**
+         * 是否为重复提交的扫码ID (未重复执行)
+         */
+        private boolean duplicate;
+
+        /**
+         * 本条扫码执行后批次的库存数量 (失败时为当前数量或 null，PENDING 时为 null)
+         */
+        private Integer quantityAfter;
+        private String message;
+    }
+}
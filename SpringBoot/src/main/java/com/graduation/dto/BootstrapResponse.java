@@ -0,0 +1,27 @@
+package com.graduation.dto;
+
+import com.graduation.entity.Departments;
+import com.graduation.entity.Products;
+import com.graduation.entity.Roles;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 客户端启动时一次性获取的基础数据
+ * 带 since 请求时，与 since 版本相比没有变化的部分为 null，客户端继续使用本地保存的数据
+ */
+@Data
+public class BootstrapResponse {
+
+    /**
+     * 本次数据的版本，下次请求时作为 since 传回
+     */
+    private String version;
+
+    private List<Departments> departments;
+
+    private List<Roles> roles;
+
+    private List<Products> products;
+}
@@ -0,0 +1,20 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 ID 批量查询的结果，items 与请求中 ID 的顺序一致 (重复的 ID 只返回一次)
+ */
+@Data
+public class ByIdsResponse<T> {
+
+    private List<T> items = new ArrayList<>();
+
+    /**
+     * 请求中存在、但数据库中没有的 ID
+     */
+    private List<Long> missingIds = new ArrayList<>();
+}
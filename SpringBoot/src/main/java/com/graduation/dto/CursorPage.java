@@ -0,0 +1,25 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页 (keyset) 的一页结果
+ */
+@Data
+public class CursorPage<T> {
+
+    private List<T> items = new ArrayList<>();
+
+    /**
+     * 下一页的游标，作为 cursor 参数传回；为 null 表示已经是最后一页
+     */
+    private String nextCursor;
+
+    /**
+     * 本次请求使用的每页条数 (超过上限时已被截断)
+     */
+    private int size;
+}
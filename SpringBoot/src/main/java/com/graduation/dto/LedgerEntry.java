@@ -0,0 +1,26 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批次流水的精简行 (移动端使用)，只保留变动数量、结存和时间
+ */
+@Data
+public class LedgerEntry {
+
+    private Long id;
+
+    /**
+     * 库存变化数量 (+表示入库, -表示出库)
+     */
+    private Integer delta;
+
+    /**
+     * 本次异动后的批次结存，取自 quantity_after_transaction
+     */
+    private Integer balance;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package com.graduation.dto;
+
+import com.graduation.entity.Products;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 产品全文搜索的一页结果, items 按相关度从高到低排列
+ */
+@Data
+public class ProductSearchResponse {
+
+    /**
+     * 命中的产品总数
+     */
+    private int total;
+
+    /**
+     * 页码，从 1 开始
+     */
+    private int page;
+
+    private int size;
+
+    private List<Products> items = new ArrayList<>();
+}
@@ -5,6 +5,15 @@ public class ScanRequest {
     private String batchCode;
     private int userId;
 
+    // 本次扫码的数量, 为空时按 1 处理
+    private Integer quantity;
+
+    // 是否允许服务端把同一用户对同一批次的连续扫码合并提交
+    private boolean coalesce;
+
+    // 客户端生成的扫码ID (幂等键), 网络重试时携带相同的ID不会重复入库/出库
+    private String clientScanId;
+
     // 无参构造函数
     public ScanRequest() {
     }
@@ -31,4 +40,28 @@ public class ScanRequest {
     public void setUserId(int userId) {
         this.userId = userId;
     }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public void setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public String getClientScanId() {
+        return clientScanId;
+    }
+
+    public void setClientScanId(String clientScanId) {
+        this.clientScanId = clientScanId;
+    }
 }
\ No newline at end of file
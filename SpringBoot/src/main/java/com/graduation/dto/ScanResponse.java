@@ -5,16 +5,72 @@ import com.graduation.entity.Products; // 确保你有一个 Products 实体类
 
 public class ScanResponse {
 
+    /**
+     * 扫码接口的处理状态
+     */
+    public enum Status {
+        OK,        // 已生效
+        DUPLICATE, // 重复提交的 clientScanId，未再次执行 (有首次处理的结果时一并返回)
+        ACCEPTED   // 已受理但尚未生效或结果尚未写入 (合并扫码，或相同ID的请求正在处理中)，有 ticketId 时凭它查询结果
+    }
+
+    private Status status = Status.OK;
+
+    /**
+     * 合并扫码的受理凭证ID, 通过 GET /scan/tickets/{id} 查询结果
+     */
+    private String ticketId;
+
     private Inventory inventory;
     private Products product;
 
+    /**
+     * 扫码接口返回时为本次写入的异动日志ID (异步写日志模式下为空)
+     */
+    private Long transactionLogId;
+
     // 构造函数
     public ScanResponse(Inventory inventory, Products product) {
         this.inventory = inventory;
         this.product = product;
     }
 
+    public ScanResponse(Inventory inventory, Products product, Long transactionLogId) {
+        this.inventory = inventory;
+        this.product = product;
+        this.transactionLogId = transactionLogId;
+    }
+
+    public static ScanResponse duplicate() {
+        ScanResponse response = new ScanResponse(null, null);
+        response.setStatus(Status.DUPLICATE);
+        return response;
+    }
+
+    public static ScanResponse accepted(String ticketId) {
+        ScanResponse response = new ScanResponse(null, null);
+        response.setStatus(Status.ACCEPTED);
+        response.setTicketId(ticketId);
+        return response;
+    }
+
     // Getters and Setters
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
     public Inventory getInventory() {
         return inventory;
     }
@@ -30,4 +86,12 @@ public class ScanResponse {
     public void setProduct(Products product) {
         this.product = product;
     }
+
+    public Long getTransactionLogId() {
+        return transactionLogId;
+    }
+
+    public void setTransactionLogId(Long transactionLogId) {
+        this.transactionLogId = transactionLogId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.graduation.dto;
+
+import com.graduation.entity.Inventory;
+import com.graduation.entity.Products;
+import com.graduation.entity.TransactionLogs;
+import lombok.Data;
+
+/**
+ * 单次扫码在服务层的处理结果
+ */
+@Data
+public class ScanResult {
+
+    /**
+     * 扫码处理状态
+     */
+    public enum Status {
+        OK,                 // 成功
+        NOT_FOUND,          // 批次号不存在
+        INSUFFICIENT_STOCK, // 库存不足
+        INVALID,            // 请求参数不合法
+        PENDING             // 重复提交，首次提交已受理但结果尚未写入 (相同 clientScanId 的请求正在处理中，或合并窗口的异动日志尚未写库)
+    }
+
+    private Status status;
+
+    /**
+     * 更新后的库存记录 (仅在成功时有值)
+     */
+    private Inventory inventory;
+
+    /**
+     * 库存所属的产品 (仅在成功时有值)
+     */
+    private Products product;
+
+    /**
+     * 本次扫码写入的异动日志 (仅在成功时有值)
+     */
+    private TransactionLogs transactionLog;
+
+    /**
+     * 是否为重复提交 (相同的 clientScanId 之前已经处理过, 返回的是首次处理的结果)
+     */
+    private boolean duplicate;
+
+    public static ScanResult of(Status status) {
+        ScanResult result = new ScanResult();
+        result.setStatus(status);
+        return result;
+    }
+
+    public static ScanResult ok(Inventory inventory, TransactionLogs transactionLog) {
+        ScanResult result = of(Status.OK);
+        result.setInventory(inventory);
+        result.setTransactionLog(transactionLog);
+        return result;
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+}
@@ -0,0 +1,42 @@
+package com.graduation.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步扫码或合并扫码的受理凭证, 客户端凭 id 查询处理结果
+ */
+@Data
+public class ScanTicket {
+
+    public enum Status {
+        /**
+         * 已进入队列 (或合并窗口)，等待处理
+         */
+        QUEUED,
+        /**
+         * 正在写库
+         */
+        PROCESSING,
+        /**
+         * 已处理完成，每一条扫码的结果见 result
+         */
+        DONE,
+        /**
+         * 处理异常 (例如数据库不可用)，可以用相同的 clientScanId 重新提交
+         */
+        FAILED
+    }
+
+    private String id;
+    private int entries;
+
+    // 由后台线程更新、HTTP 线程读取
+    private volatile Status status;
+    private volatile BatchScanResponse result;
+    private volatile String message;
+
+    private LocalDateTime createdAt;
+    private volatile LocalDateTime completedAt;
+}
@@ -6,10 +6,13 @@ import com.baomidou.mybatisplus.annotation.TableName;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -24,6 +27,8 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
+@Table(name = "transaction_logs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_client_scan_id", columnNames = "client_scan_id"))
 @TableName("transaction_logs")
 public class TransactionLogs implements Serializable {
 
@@ -64,5 +69,11 @@ public class TransactionLogs implements Serializable {
      */
     private String notes;
 
+    /**
+     * 客户端生成的扫码ID (幂等键), 同一个ID只会被处理一次
+     */
+    @Column(length = 64)
+    private String clientScanId;
+
     private LocalDateTime createdAt;
 }
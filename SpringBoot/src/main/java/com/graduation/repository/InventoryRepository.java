@@ -1,9 +1,16 @@
 package com.graduation.repository; // 包名可能不同
 
+import com.graduation.dto.ScanResponse;
 import com.graduation.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +41,72 @@ public interface InventoryRepository extends JpaRepository<Inventory, Integer> {
 
     // 在 InventoryRepository.java 中
     List<Inventory> findByProductId(Integer productId);
-}
\ No newline at end of file
+
+    /**
+     * 根据批次号查询库存及其所属产品，一条 JOIN 语句直接映射为 ScanResponse。
+     * 使用 LEFT JOIN: 产品不存在 (数据不一致) 时仍返回库存，product 为 null。
+     *
+     * 生成的 SQL 类似:
+     * "SELECT i.*, p.* FROM inventory i LEFT JOIN products p ON p.id = i.product_id WHERE i.batch_code = ?"
+     *
+     * @param batchCode 批次唯一编码
+     * @return 包含库存和产品信息的 Optional 对象
+     */
+    @Query("SELECT new com.graduation.dto.ScanResponse(i, p) FROM Inventory i " +
+            "LEFT JOIN Products p ON p.id = i.productId WHERE i.batchCode = :batchCode")
+    Optional<ScanResponse> findScanResponseByBatchCode(@Param("batchCode") String batchCode);
+
+    /**
+     * 查询全部批次号 (只查一列)，用于构建自动补全的前缀索引
+     */
+    @Query("SELECT i.batchCode FROM Inventory i")
+    List<String> findAllBatchCodes();
+
+    /**
+     * 根据产品 SKU 查询所有相关的库存批次，一条 JOIN 语句代替 "先查产品再查库存" 两次查询。
+     *
+     * 生成的 SQL 类似:
+     * "SELECT i.* FROM inventory i JOIN products p ON p.id = i.product_id WHERE p.sku = ?"
+     *
+     * @param sku 产品的 SKU
+     * @return 库存批次列表，产品不存在时为空列表
+     */
+    @Query("SELECT i FROM Inventory i JOIN Products p ON p.id = i.productId WHERE p.sku = :sku")
+    List<Inventory> findByProductSku(@Param("sku") String sku);
+
+    /**
+     * 按批次号原子地调整库存数量 (单条 UPDATE 语句)。
+     * 只有在 "quantity + delta >= 0" 时才会更新，由数据库行锁保证并发扫码不会丢失更新或出现负库存。
+     *
+     * 生成的 SQL 类似:
+     * "UPDATE inventory SET quantity = quantity + ? WHERE batch_code = ? AND quantity + ? >= 0"
+     *
+     * @param batchCode 批次唯一编码
+     * @param delta     数量变化 (+入库, -出库)
+     * @return 受影响的行数: 1 表示成功; 0 表示批次不存在或库存不足
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :delta " +
+            "WHERE i.batchCode = :batchCode AND i.quantity + :delta >= 0")
+    int adjustQuantityByBatchCode(@Param("batchCode") String batchCode, @Param("delta") int delta);
+
+    /**
+     * 根据一组批次号查询库存ID (只查主键, 不加锁)。
+     *
+     * @param batchCodes 批次唯一编码集合
+     * @return 存在的库存记录ID
+     */
+    @Query("SELECT i.id FROM Inventory i WHERE i.batchCode IN :batchCodes")
+    List<Integer> findIdsByBatchCodeIn(@Param("batchCodes") Collection<String> batchCodes);
+
+    /**
+     * 按主键升序对一组库存记录加排他行锁 (SELECT ... FOR UPDATE)。
+     * 所有批量操作都按 ID 升序加锁, 保证多个事务之间的加锁顺序一致, 避免死锁。
+     *
+     * @param ids 库存记录ID集合
+     * @return 已加锁的库存记录, 按 ID 升序
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id IN :ids ORDER BY i.id")
+    List<Inventory> lockAllByIdIn(@Param("ids") Collection<Integer> ids);
+}
@@ -1,9 +1,14 @@
 package com.graduation.repository;
 
+import com.graduation.common.JpaCacheRegions;
 import com.graduation.entity.Products;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,5 +21,15 @@ public interface ProductsRepository extends JpaRepository<Products, Integer> {
      * @param sku 产品的 SKU
      * @return 包含查询结果的 Optional 对象
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = JpaCacheRegions.PRODUCTS_QUERIES)
+    })
     Optional<Products> findBySku(String sku);
+
+    /**
+     * 查询全部 SKU (只查一列)，用于构建自动补全的前缀索引
+     */
+    @Query("SELECT p.sku FROM Products p")
+    List<String> findAllSkus();
 }
\ No newline at end of file
@@ -4,7 +4,15 @@ import com.graduation.entity.TransactionLogs;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TransactionLogsRepository extends JpaRepository<TransactionLogs, Long> {
     // JpaRepository 已经提供了 save 方法
-}
\ No newline at end of file
+
+    /**
+     * 批量查找一组客户端扫码ID对应的异动日志 (client_scan_id 上有唯一索引)
+     */
+    List<TransactionLogs> findByClientScanIdIn(Collection<String> clientScanIds);
+}
@@ -0,0 +1,56 @@
+package com.graduation.service;
+
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanResult;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 扫码出入库 服务类
+ * 负责库存数量的原子更新以及异动日志的写入
+ * </p>
+ */
+public interface ScanService {
+
+    /**
+     * 对单个批次执行一次扫码
+     *
+     * @param batchCode 批次唯一编码
+     * @param userId    操作员ID
+     * @param delta     数量变化 (+入库, -出库)
+     * @param notes     异动日志备注
+     * @param clientScanId 客户端扫码ID (幂等键), 可以为空
+     * @return 处理结果; 如果 clientScanId 已经处理过, 返回首次处理的结果且不再修改库存
+     */
+    ScanResult scan(String batchCode, int userId, int delta, String notes, String clientScanId);
+
+    /**
+     * 查询某个客户端扫码ID是否已经处理过
+     *
+     * @param clientScanId 客户端扫码ID
+     * @return 首次处理的结果 (duplicate = true), 未处理过时返回 null
+     */
+    ScanResult findApplied(String clientScanId);
+
+    /**
+     * 在一个事务中执行一批扫码, 单条失败不会影响其他条目
+     *
+     * @param request 批量扫码请求
+     * @return 每一条扫码的处理结果
+     */
+    BatchScanResponse scanBatch(BatchScanRequest request);
+
+    /**
+     * 把一个合并窗口内对同一批次、同一方向的多次扫码作为一次扫码执行:
+     * 只更新一次库存、写一条异动日志 (client_scan_id 为新生成的窗口ID)，
+     * 窗口内每一个 clientScanId 都记录到 scan_receipts。已经处理过的扫码ID会被排除，其数量不计入。
+     *
+     * @param userId    操作员ID
+     * @param batchCode 批次唯一编码
+     * @param entries   窗口内的扫码 (按受理顺序)
+     * @return 每一条扫码的处理结果; 库存不足时窗口内所有未处理过的扫码都不生效
+     */
+    BatchScanResponse scanCoalesced(int userId, String batchCode, List<BatchScanRequest.Entry> entries);
+}
@@ -1,14 +1,26 @@
 package com.graduation.service.impl;
 
+import com.graduation.common.JpaCacheRegions;
+import com.graduation.common.ProductCache;
+import com.graduation.common.ProductSearchIndex;
+import com.graduation.common.SuggestIndexes;
 import com.graduation.entity.Products;
 import com.graduation.mapper.ProductsMapper;
 import com.graduation.service.ProductsService;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * <p>
  * 产品主数据表 服务实现类
+ * 按ID查询走 ProductCache，增删改后失效对应的缓存条目 (ProductCache 和 Hibernate 二级缓存)，
+ * 并更新 SKU 前缀索引和全文搜索索引
  * </p>
  *
  * @author 张三
@@ -17,4 +29,118 @@ import org.springframework.stereotype.Service;
 @Service
 public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> implements ProductsService {
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JpaCacheRegions jpaCacheRegions;
+
+    @Autowired
+    private SuggestIndexes suggestIndexes;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Override
+    public Products getById(Serializable id) {
+        if (id instanceof Number number) {
+            return productCache.getById(number.intValue());
+        }
+        return super.getById(id);
+    }
+
+    /**
+     * 批量查询同样先走产品缓存，只有未命中的 ID 才查询数据库
+     */
+    @Override
+    public List<Products> listByIds(Collection<? extends Serializable> idList) {
+        List<Integer> ids = new ArrayList<>(idList.size());
+        for (Serializable id : idList) {
+            if (!(id instanceof Number number)) {
+                return super.listByIds(idList);
+            }
+            ids.add(number.intValue());
+        }
+        return new ArrayList<>(productCache.getAllById(ids).values());
+    }
+
+    @Override
+    public boolean save(Products entity) {
+        boolean success = super.save(entity);
+        evictCaches(entity.getId());
+        if (success) {
+            suggestIndexes.skus().add(entity.getSku());
+            productSearchIndex.index(entity);
+        }
+        return success;
+    }
+
+    @Override
+    public boolean updateById(Products entity) {
+        // 绕过缓存读取修改前的 SKU
+        Products old = entity.getId() == null ? null : super.getById(entity.getId());
+        boolean success = super.updateById(entity);
+        evictCaches(entity.getId());
+        if (success && old != null && entity.getSku() != null) {
+            suggestIndexes.skus().replace(old.getSku(), entity.getSku());
+        }
+        if (success) {
+            // entity 中可能只有部分字段 (为 null 的字段不更新)，按修改后的完整记录建索引
+            productSearchIndex.index(super.getById(entity.getId()));
+        }
+        return success;
+    }
+
+    /**
+     * 委托给 save / updateById，缓存失效和索引维护只写在一处；是否已存在绕过缓存判断
+     */
+    @Override
+    public boolean saveOrUpdate(Products entity) {
+        if (entity == null) {
+            return false;
+        }
+        if (entity.getId() == null || super.getById(entity.getId()) == null) {
+            return save(entity);
+        }
+        return updateById(entity);
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        Products old = super.getById(id);
+        boolean success = super.removeById(id);
+        if (success && old != null) {
+            suggestIndexes.skus().remove(old.getSku());
+            productSearchIndex.remove(old.getId());
+        }
+        if (id instanceof Number number) {
+            evictCaches(number.intValue());
+        } else {
+            evictCaches(null);
+        }
+        return success;
+    }
+
+    @Override
+    public boolean removeByIds(Collection<?> list) {
+        boolean success = super.removeByIds(list);
+        evictCaches(null);
+        suggestIndexes.rebuild();
+        productSearchIndex.rebuild();
+        return success;
+    }
+
+    /**
+     * ProductCache 通过 JPA 加载，先失效 Hibernate 二级缓存，避免重新加载时读到旧数据
+     *
+     * @param id 为 null 时失效全部产品
+     */
+    private void evictCaches(Integer id) {
+        jpaCacheRegions.evictProduct(id);
+        if (id == null) {
+            productCache.invalidateAll();
+        } else {
+            productCache.invalidate(id);
+        }
+    }
 }
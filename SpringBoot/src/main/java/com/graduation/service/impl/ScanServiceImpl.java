@@ -0,0 +1,528 @@
+package com.graduation.service.impl;
+
+import com.graduation.common.EntityVersions;
+import com.graduation.common.HotBatchCounters;
+import com.graduation.common.InventoryBatchIndex;
+import com.graduation.common.LedgerWriter;
+import com.graduation.common.ProductCache;
+import com.graduation.common.ScanIdempotencyCache;
+import com.graduation.common.ScanReceipts;
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanResult;
+import com.graduation.entity.Inventory;
+import com.graduation.entity.TransactionLogs;
+import com.graduation.repository.InventoryRepository;
+import com.graduation.repository.TransactionLogsRepository;
+import com.graduation.service.ScanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * <p>
+ * 扫码出入库 服务实现类
+ * </p>
+ */
+@Service
+public class ScanServiceImpl implements ScanService {
+
+    private static final String UPDATE_QUANTITY_SQL = "UPDATE inventory SET quantity = ? WHERE id = ?";
+
+    /**
+     * 合并窗口写入异动日志时使用的 client_scan_id 前缀，后接随机 UUID
+     */
+    private static final String WINDOW_SCAN_ID_PREFIX = "window:";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransactionLogsRepository transactionLogsRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScanIdempotencyCache idempotencyCache;
+
+    @Autowired
+    private LedgerWriter ledgerWriter;
+
+    @Autowired
+    private HotBatchCounters hotBatchCounters;
+
+    @Autowired
+    private InventoryBatchIndex inventoryBatchIndex;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private ScanReceipts scanReceipts;
+
+    @Override
+    @Transactional // 库存更新和日志记录是一个原子操作
+    public ScanResult scan(String batchCode, int userId, int delta, String notes, String clientScanId) {
+        if (batchCode == null || batchCode.isBlank() || delta == 0) {
+            return ScanResult.of(ScanResult.Status.INVALID);
+        }
+
+        // 0. 幂等检查: 同一个 clientScanId 已经处理过时直接返回首次的结果
+        if (clientScanId != null) {
+            ScanResult previous = findApplied(clientScanId);
+            if (previous != null) {
+                return previous;
+            }
+            // 同一个ID正在被另一个请求处理，结果尚未提交
+            if (!idempotencyCache.reserveForTransaction(clientScanId)) {
+                return pendingResult();
+            }
+        }
+
+        // 热点批次只修改内存计数器，库存表由 HotBatchCounters 定时刷回
+        HotBatchCounters.Counter counter = hotBatchCounters.get(batchCode);
+        if (counter != null) {
+            ScanResult hot = scanHot(counter, userId, delta, notes, clientScanId);
+            if (hot != null) {
+                return hot;
+            }
+            // 计数器刚被关闭 (取消了热点标记)，改走下面的数据库路径
+        }
+
+        // 1. 原子地更新库存数量 (单条 UPDATE，"quantity + delta >= 0" 的检查与更新在同一条语句中完成)
+        int updated = inventoryRepository.adjustQuantityByBatchCode(batchCode, delta);
+
+        // 更新后该行已被当前事务锁定，这里读到的就是更新后的数量
+        Optional<Inventory> inventoryOpt = inventoryRepository.findByBatchCode(batchCode);
+        if (inventoryOpt.isEmpty()) {
+            return ScanResult.of(ScanResult.Status.NOT_FOUND);
+        }
+        // 批次存在但没有行被更新，说明库存不足
+        if (updated == 0) {
+            return ScanResult.of(ScanResult.Status.INSUFFICIENT_STOCK);
+        }
+        Inventory inventory = inventoryOpt.get();
+        inventoryBatchIndex.putAfterCommit(inventory);
+        entityVersions.bumpAfterCommit(Inventory.class);
+
+        // 2. 记录异动日志 (client_scan_id 上的唯一索引保证并发的重复提交只有一个能成功)
+        TransactionLogs log = createTransactionLog(inventory, userId, typeOf(delta), delta, inventory.getQuantity(), notes, clientScanId);
+        if (clientScanId != null) {
+            idempotencyCache.putAfterCommit(clientScanId, log);
+        }
+        return okResult(inventory, log);
+    }
+
+    /**
+     * 热点批次的扫码: 在内存计数器上预留数量，再写异动日志；事务提交后确认 (入库此时才可被出库)，回滚时归还预留
+     *
+     * @return 计数器已关闭时返回 null
+     */
+    private ScanResult scanHot(HotBatchCounters.Counter counter, int userId, int delta, String notes, String clientScanId) {
+        int quantityAfter = counter.tryApply(delta);
+        if (quantityAfter == HotBatchCounters.CLOSED) {
+            return null;
+        }
+        if (quantityAfter == HotBatchCounters.INSUFFICIENT) {
+            return ScanResult.of(ScanResult.Status.INSUFFICIENT_STOCK);
+        }
+        counter.settleOnCompletion(delta, jdbcTemplate, entityVersions);
+        Inventory inventory = counter.snapshot(quantityAfter);
+        TransactionLogs log = createTransactionLog(inventory, userId, typeOf(delta), delta, quantityAfter, notes, clientScanId);
+        if (clientScanId != null) {
+            idempotencyCache.putAfterCommit(clientScanId, log);
+        }
+        return okResult(inventory, log);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ScanResult findApplied(String clientScanId) {
+        Applied applied = findAppliedLogs(Collections.singleton(clientScanId)).get(clientScanId);
+        if (applied == null) {
+            return null;
+        }
+        if (applied.isPending()) {
+            return pendingResult();
+        }
+        TransactionLogs log = applied.log();
+        Inventory inventory = log.getInventoryId() == null ? null : inventoryRepository.findById(log.getInventoryId()).orElse(null);
+        ScanResult result = okResult(inventory, log);
+        result.setDuplicate(true);
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public BatchScanResponse scanBatch(BatchScanRequest request) {
+        BatchScanResponse response = new BatchScanResponse();
+        List<BatchScanRequest.Entry> entries = request.getEntries() == null ? Collections.emptyList() : request.getEntries();
+
+        // 1. 初始化每一条的结果, 先过滤掉不合法的条目和重复提交的扫码ID
+        Map<String, Applied> appliedLogs = findAppliedLogs(scanIdsOf(entries));
+        Map<String, BatchScanResponse.Result> firstByScanId = new HashMap<>();
+        List<BatchScanResponse.Result> repeats = new ArrayList<>();
+        Set<String> batchCodes = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BatchScanRequest.Entry entry = entries.get(i);
+            BatchScanResponse.Result result = new BatchScanResponse.Result();
+            result.setIndex(i);
+            result.setClientScanId(entry.getClientScanId());
+            result.setBatchCode(entry.getBatchCode());
+            result.setDelta(entry.getDelta());
+            if (entry.getBatchCode() == null || entry.getBatchCode().isBlank() || entry.getDelta() == 0) {
+                result.setStatus(ScanResult.Status.INVALID);
+                result.setMessage("批次号为空或数量为 0");
+            } else if (entry.getClientScanId() != null && appliedLogs.containsKey(entry.getClientScanId())) {
+                markApplied(result, appliedLogs.get(entry.getClientScanId()));
+            } else if (entry.getClientScanId() != null && firstByScanId.containsKey(entry.getClientScanId())) {
+                // 结果在第 3 步之后从首次出现的那一条复制
+                result.setDuplicate(true);
+                result.setMessage("重复的扫码ID (同一请求中重复)，已忽略");
+                repeats.add(result);
+            } else if (entry.getClientScanId() != null && !idempotencyCache.reserveForTransaction(entry.getClientScanId())) {
+                result.setStatus(ScanResult.Status.PENDING);
+                result.setDuplicate(true);
+                result.setMessage("重复的扫码ID (正在处理中)，已忽略");
+            } else {
+                batchCodes.add(entry.getBatchCode());
+            }
+            if (entry.getClientScanId() != null) {
+                firstByScanId.putIfAbsent(entry.getClientScanId(), result);
+            }
+            response.getResults().add(result);
+        }
+
+        // 2. 先查出涉及的库存ID, 再按 ID 升序统一加行锁, 保证并发批次之间的加锁顺序一致
+        // batch_code 列是大小写不敏感的排序规则, 这里的查找也保持一致
+        // 热点批次不加行锁，在第 3 步中直接修改内存计数器
+        Map<String, HotBatchCounters.Counter> hotCounters = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        batchCodes.removeIf(code -> {
+            HotBatchCounters.Counter counter = hotBatchCounters.get(code);
+            if (counter == null) {
+                return false;
+            }
+            hotCounters.put(code, counter);
+            return true;
+        });
+        Map<String, Inventory> inventoryByCode = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (!batchCodes.isEmpty()) {
+            List<Integer> ids = inventoryRepository.findIdsByBatchCodeIn(batchCodes);
+            if (!ids.isEmpty()) {
+                for (Inventory inventory : inventoryRepository.lockAllByIdIn(ids)) {
+                    inventoryByCode.put(inventory.getBatchCode(), inventory);
+                }
+            }
+        }
+
+        // 3. 行已锁定, 按请求顺序在内存中依次应用每一条扫码
+        Map<Integer, Integer> quantities = new TreeMap<>(); // inventoryId -> 当前数量, 按 ID 升序写回
+        List<TransactionLogs> logs = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (BatchScanResponse.Result result : response.getResults()) {
+            if (result.getStatus() != null || result.isDuplicate()) {
+                continue;
+            }
+            HotBatchCounters.Counter counter = hotCounters.get(result.getBatchCode());
+            if (counter != null) {
+                // 调用方持有该批次的分段锁，热点标记不会在此期间变化，计数器不会被关闭
+                int quantityAfter = counter.tryApply(result.getDelta());
+                if (quantityAfter < 0) {
+                    result.setStatus(ScanResult.Status.INSUFFICIENT_STOCK);
+                    result.setQuantityAfter(counter.getQuantity());
+                    result.setMessage("库存不足，无法出库");
+                    continue;
+                }
+                counter.settleOnCompletion(result.getDelta(), jdbcTemplate, entityVersions);
+                result.setStatus(ScanResult.Status.OK);
+                result.setQuantityAfter(quantityAfter);
+                logs.add(batchLog(request.getUserId(), counter.getInventoryId(), result, quantityAfter, now));
+                continue;
+            }
+            Inventory inventory = inventoryByCode.get(result.getBatchCode());
+            if (inventory == null) {
+                result.setStatus(ScanResult.Status.NOT_FOUND);
+                result.setMessage("批次号不存在");
+                continue;
+            }
+            int current = quantities.getOrDefault(inventory.getId(), inventory.getQuantity());
+            int delta = result.getDelta();
+            if (current + delta < 0) {
+                result.setStatus(ScanResult.Status.INSUFFICIENT_STOCK);
+                result.setQuantityAfter(current);
+                result.setMessage("库存不足，无法出库");
+                continue;
+            }
+            int quantityAfter = current + delta;
+            quantities.put(inventory.getId(), quantityAfter);
+            result.setStatus(ScanResult.Status.OK);
+            result.setQuantityAfter(quantityAfter);
+            logs.add(batchLog(request.getUserId(), inventory.getId(), result, quantityAfter, now));
+        }
+        for (BatchScanResponse.Result repeat : repeats) {
+            BatchScanResponse.Result first = firstByScanId.get(repeat.getClientScanId());
+            repeat.setStatus(first.getStatus());
+            repeat.setQuantityAfter(first.getQuantityAfter());
+        }
+
+        // 4. 使用 JDBC 批处理写回库存数量，异动日志交给 LedgerWriter (同步批量插入或异步 group commit)
+        if (!quantities.isEmpty()) {
+            List<Object[]> updateRows = new ArrayList<>(quantities.size());
+            quantities.forEach((id, quantity) -> updateRows.add(new Object[]{quantity, id}));
+            jdbcTemplate.batchUpdate(UPDATE_QUANTITY_SQL, updateRows);
+            entityVersions.bumpAfterCommit(Inventory.class);
+            for (Inventory inventory : inventoryByCode.values()) {
+                Integer quantity = quantities.get(inventory.getId());
+                if (quantity != null) {
+                    // 复制后再修改，不触发 JPA 对托管实体的脏检查
+                    Inventory updated = InventoryBatchIndex.copyOf(inventory);
+                    updated.setQuantity(quantity);
+                    inventoryBatchIndex.putAfterCommit(updated);
+                }
+            }
+        }
+        if (!logs.isEmpty()) {
+            ledgerWriter.writeAll(logs);
+            for (TransactionLogs log : logs) {
+                if (log.getClientScanId() != null) {
+                    idempotencyCache.putAfterCommit(log.getClientScanId(), log);
+                }
+            }
+        }
+
+        int duplicates = (int) response.getResults().stream().filter(BatchScanResponse.Result::isDuplicate).count();
+        response.setApplied(logs.size());
+        response.setDuplicates(duplicates);
+        response.setFailed(entries.size() - logs.size() - duplicates);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public BatchScanResponse scanCoalesced(int userId, String batchCode, List<BatchScanRequest.Entry> entries) {
+        BatchScanResponse response = new BatchScanResponse();
+
+        // 1. 排除已经处理过 (或正在其他事务中处理) 的扫码ID，其余的数量累加
+        Map<String, Applied> appliedLogs = findAppliedLogs(scanIdsOf(entries));
+        List<BatchScanResponse.Result> pending = new ArrayList<>();
+        List<String> pendingScanIds = new ArrayList<>();
+        int delta = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            BatchScanRequest.Entry entry = entries.get(i);
+            BatchScanResponse.Result result = new BatchScanResponse.Result();
+            result.setIndex(i);
+            result.setClientScanId(entry.getClientScanId());
+            result.setBatchCode(batchCode);
+            result.setDelta(entry.getDelta());
+            String clientScanId = entry.getClientScanId();
+            if (clientScanId != null && appliedLogs.containsKey(clientScanId)) {
+                markApplied(result, appliedLogs.get(clientScanId));
+            } else if (clientScanId != null && !idempotencyCache.reserveForTransaction(clientScanId)) {
+                result.setStatus(ScanResult.Status.PENDING);
+                result.setDuplicate(true);
+                result.setMessage("重复的扫码ID (正在处理中)，已忽略");
+            } else {
+                delta += entry.getDelta();
+                pending.add(result);
+                if (clientScanId != null) {
+                    pendingScanIds.add(clientScanId);
+                }
+            }
+            response.getResults().add(result);
+        }
+
+        // 2. 剩下的扫码作为一次扫码执行，异动日志的 client_scan_id 是新的窗口ID，不与任何客户端扫码ID冲突
+        if (!pending.isEmpty()) {
+            String windowScanId = WINDOW_SCAN_ID_PREFIX + UUID.randomUUID();
+            String notes = "扫码" + typeOf(delta) + " (合并 " + pending.size() + " 次扫码)";
+            ScanResult applied = scan(batchCode, userId, delta, notes, windowScanId);
+            if (applied.isOk()) {
+                // 与库存更新同一个事务，主键冲突 (并发的重复提交) 时整个窗口回滚
+                scanReceipts.insert(pendingScanIds, windowScanId);
+                for (String clientScanId : pendingScanIds) {
+                    idempotencyCache.putAfterCommit(clientScanId, applied.getTransactionLog());
+                }
+            }
+            Integer quantityAfter = applied.getInventory() == null ? null : applied.getInventory().getQuantity();
+            for (BatchScanResponse.Result result : pending) {
+                result.setStatus(applied.getStatus());
+                result.setQuantityAfter(quantityAfter);
+                if (applied.getStatus() == ScanResult.Status.INSUFFICIENT_STOCK) {
+                    result.setMessage("库存不足，无法出库");
+                } else if (applied.getStatus() == ScanResult.Status.NOT_FOUND) {
+                    result.setMessage("批次号不存在");
+                } else if (!applied.isOk()) {
+                    result.setMessage("扫码请求不合法");
+                }
+            }
+        }
+
+        int duplicates = entries.size() - pending.size();
+        boolean ok = pending.isEmpty() || pending.get(0).getStatus() == ScanResult.Status.OK;
+        response.setApplied(ok ? pending.size() : 0);
+        response.setDuplicates(duplicates);
+        response.setFailed(ok ? 0 : pending.size());
+        return response;
+    }
+
+    private static List<String> scanIdsOf(List<BatchScanRequest.Entry> entries) {
+        List<String> clientScanIds = new ArrayList<>(entries.size());
+        for (BatchScanRequest.Entry entry : entries) {
+            if (entry.getClientScanId() != null) {
+                clientScanIds.add(entry.getClientScanId());
+            }
+        }
+        return clientScanIds;
+    }
+
+    /**
+     * 找出一批扫码ID中已经处理过的, 先查内存缓存, 未命中的再用一条 IN 查询确认;
+     * 异动日志中查不到的再查合并扫码的回执, 通过窗口ID找到合并后的那条异动日志
+     */
+    private Map<String, Applied> findAppliedLogs(Collection<String> clientScanIds) {
+        Map<String, Applied> applied = new HashMap<>();
+        Set<String> unknown = new HashSet<>();
+        for (String clientScanId : clientScanIds) {
+            if (applied.containsKey(clientScanId)) {
+                continue;
+            }
+            TransactionLogs cached = idempotencyCache.get(clientScanId);
+            if (cached != null) {
+                applied.put(clientScanId, new Applied(cached));
+            } else {
+                unknown.add(clientScanId);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return applied;
+        }
+        for (TransactionLogs log : transactionLogsRepository.findByClientScanIdIn(unknown)) {
+            applied.put(log.getClientScanId(), new Applied(log));
+            idempotencyCache.put(log.getClientScanId(), log);
+            unknown.remove(log.getClientScanId());
+        }
+        Map<String, String> windows = scanReceipts.findWindowScanIds(unknown);
+        if (!windows.isEmpty()) {
+            Map<String, TransactionLogs> windowLogs = new HashMap<>();
+            for (TransactionLogs log : transactionLogsRepository.findByClientScanIdIn(new HashSet<>(windows.values()))) {
+                windowLogs.put(log.getClientScanId(), log);
+            }
+            windows.forEach((clientScanId, windowScanId) -> {
+                TransactionLogs log = windowLogs.get(windowScanId);
+                if (log != null) {
+                    applied.put(clientScanId, new Applied(log));
+                    idempotencyCache.put(clientScanId, log);
+                } else {
+                    // 回执已提交但异动日志还在 (其他节点的) 异步写入队列中，已处理但还没有结果可以返回
+                    applied.put(clientScanId, Applied.PENDING);
+                }
+            });
+        }
+        return applied;
+    }
+
+    /**
+     * 辅助方法，把一条扫码结果标记为重复提交，并带上首次处理的结果
+     */
+    private static void markApplied(BatchScanResponse.Result result, Applied previous) {
+        result.setDuplicate(true);
+        if (previous.isPending()) {
+            result.setStatus(ScanResult.Status.PENDING);
+            result.setMessage("重复提交，首次提交已受理但结果尚未写入");
+            return;
+        }
+        result.setStatus(ScanResult.Status.OK);
+        result.setQuantityAfter(previous.log().getQuantityAfterTransaction());
+        result.setMessage("重复提交，已忽略");
+    }
+
+    /**
+     * 辅助方法，相同 clientScanId 的首次提交已受理、但还没有可以返回的结果
+     */
+    private static ScanResult pendingResult() {
+        ScanResult result = ScanResult.of(ScanResult.Status.PENDING);
+        result.setDuplicate(true);
+        return result;
+    }
+
+    /**
+     * 辅助方法，为批量扫码中的一条成功结果创建异动日志 (由调用方统一写入)
+     */
+    private TransactionLogs batchLog(Integer userId, Integer inventoryId, BatchScanResponse.Result result, int quantityAfter, LocalDateTime createdAt) {
+        int delta = result.getDelta();
+        TransactionLogs log = new TransactionLogs();
+        log.setInventoryId(inventoryId);
+        log.setUserId(userId);
+        log.setType(typeOf(delta));
+        log.setQuantityChange(delta);
+        log.setQuantityAfterTransaction(quantityAfter);
+        log.setNotes(delta > 0 ? "批量扫码入库" : "批量扫码出库");
+        log.setClientScanId(result.getClientScanId());
+        log.setCreatedAt(createdAt);
+        return log;
+    }
+
+    /**
+     * 辅助方法，构造成功的处理结果并带上所属产品，调用方不必再单独查询批次详情
+     */
+    private ScanResult okResult(Inventory inventory, TransactionLogs log) {
+        ScanResult result = ScanResult.ok(inventory, log);
+        if (inventory != null && inventory.getProductId() != null) {
+            result.setProduct(productCache.getById(inventory.getProductId()));
+        }
+        return result;
+    }
+
+    /**
+     * 根据数量变化的方向得到异动类型
+     */
+    private String typeOf(int delta) {
+        return delta > 0 ? "入库" : "出库";
+    }
+
+    /**
+     * 辅助方法，用于创建异动日志
+     */
+    private TransactionLogs createTransactionLog(Inventory inventory, int userId, String type, int quantityChange, int quantityAfter, String notes, String clientScanId) {
+        TransactionLogs log = new TransactionLogs();
+        log.setInventoryId(inventory.getId());
+        log.setUserId(userId);
+        log.setType(type);
+        log.setQuantityChange(quantityChange);
+        log.setQuantityAfterTransaction(quantityAfter);
+        log.setNotes(notes);
+        log.setClientScanId(clientScanId);
+        log.setCreatedAt(LocalDateTime.now()); // 假设你有这个字段并希望记录当前时间
+        return ledgerWriter.write(log);
+    }
+
+    /**
+     * 已处理过的扫码ID: 带首次处理写入的异动日志；log 为空 (PENDING) 表示回执已提交、合并窗口的异动日志还没有写库
+     */
+    private record Applied(TransactionLogs log) {
+
+        private static final Applied PENDING = new Applied(null);
+
+        boolean isPending() {
+            return log == null;
+        }
+    }
+}
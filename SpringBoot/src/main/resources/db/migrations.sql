@@ -0,0 +1,12 @@
+-- 应用启动时执行 (spring.sql.init)，每条语句都可以重复执行。
+-- 用于补齐按旧版本 warehouse_db.sql 建立的库中缺少的、不由 JPA 实体管理的表；
+-- 全新的库直接导入 warehouse_db.sql 即可。
+
+-- 合并扫码的扫码ID回执 (见 ScanReceipts)
+CREATE TABLE IF NOT EXISTS `scan_receipts`  (
+  `client_scan_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '客户端扫码ID (幂等键)',
+  `window_scan_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '合并窗口ID, 即 transaction_logs.client_scan_id',
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`client_scan_id`) USING BTREE,
+  INDEX `idx_window_scan_id`(`window_scan_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '合并扫码的扫码ID回执表' ROW_FORMAT = Dynamic;
@@ -0,0 +1,214 @@
+package com.graduation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫码与库存列表接口的压测工具 (闭环压测: 每个并发连接收到响应后立即发下一个请求)
+ *
+ * 对比平台线程与虚拟线程两种模式:
+ * 1. mvn spring-boot:run -Dspring-boot.run.arguments="--logging.level.org.springframework=INFO --spring.jpa.show-sql=false"
+ *    另开一个终端运行 (位于测试源码中，不会打进应用包):
+ *    mvn -Pbenchmark test-compile exec:java -Dexec.args="--label=platform --batch=某个已存在的批次号"
+ * 2. mvn -Pjava21 spring-boot:run -Dspring-boot.run.profiles=vthreads -Dspring-boot.run.arguments="(同上)"
+ *    再次运行压测，参数 --label=virtual --batch=同一个批次号
+ * 两次的结果都会追加到 --out 指定的 CSV 文件中，便于对比 requests/second 与 p99 延迟。
+ *
+ * 注意: /scan/inbound 会真实地增加该批次的库存并写异动日志，请使用本地测试库。
+ *
+ * 参数 (均可省略): --base=http://localhost:8080 --endpoints=scan,list --concurrency=64
+ *                 --warmup=5 --duration=30 (秒) --batch=BENCH-001 --user=1 --label=run --out=benchmark.csv
+ */
+public class ScanBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String base = options.getOrDefault("base", "http://localhost:8080");
+        List<String> endpoints = Arrays.asList(options.getOrDefault("endpoints", "scan,list").split(","));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        String batchCode = options.getOrDefault("batch", "BENCH-001");
+        String userId = options.getOrDefault("user", "1");
+        String label = options.getOrDefault("label", "run");
+        Path out = Paths.get(options.getOrDefault("out", "benchmark.csv"));
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+        try {
+            for (String endpoint : endpoints) {
+                HttpRequest request;
+                switch (endpoint.trim()) {
+                    case "scan":
+                        String body = "{\"batchCode\":\"" + batchCode + "\",\"userId\":" + userId + ",\"quantity\":1}";
+                        request = HttpRequest.newBuilder(URI.create(base + "/scan/inbound"))
+                                .timeout(Duration.ofSeconds(30))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+                        break;
+                    case "list":
+                        request = HttpRequest.newBuilder(URI.create(base + "/inventory/list"))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        break;
+                    default:
+                        logger.warn("未知的接口: {} (可选 scan, list)", endpoint);
+                        continue;
+                }
+
+                String path = request.uri().getPath();
+                logger.info("[{}] {} 预热 {} 秒...", label, path, warmupSeconds);
+                run(client, request, concurrency, warmupSeconds);
+                logger.info("[{}] {} 压测 {} 秒, 并发 {}...", label, path, durationSeconds, concurrency);
+                Result result = run(client, request, concurrency, durationSeconds);
+                result.log(label, path, concurrency);
+                result.appendCsv(out, label, path, concurrency);
+            }
+            logger.info("结果已追加到 {}", out.toAbsolutePath());
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 用 concurrency 个工作线程持续发送同一个请求，直到时间结束
+     */
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        Future<?>[] futures = new Future<?>[concurrency];
+        Result[] partials = new Result[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            Result partial = new Result();
+            partials[i] = partial;
+            futures[i] = workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        partial.record(System.nanoTime() - sent, response.statusCode() / 100 == 2);
+                    } catch (IOException e) {
+                        partial.record(System.nanoTime() - sent, false);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        workers.shutdown();
+        Result total = Result.merge(partials);
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * 一次压测的统计结果，延迟单位为纳秒
+     */
+    private static class Result {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private long elapsedNanos;
+
+        void record(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        static Result merge(Result[] partials) {
+            Result total = new Result();
+            int size = 0;
+            for (Result partial : partials) {
+                size += partial.count;
+            }
+            total.latencies = new long[Math.max(size, 1)];
+            for (Result partial : partials) {
+                System.arraycopy(partial.latencies, 0, total.latencies, total.count, partial.count);
+                total.count += partial.count;
+                total.errors += partial.errors;
+            }
+            Arrays.sort(total.latencies, 0, total.count);
+            return total;
+        }
+
+        double percentileMs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return latencies[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+        }
+
+        double requestsPerSecond() {
+            return count / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        void log(String label, String path, int concurrency) {
+            logger.info(String.format(Locale.ROOT, "[%s] %s 并发=%d 请求=%d 失败=%d rps=%.1f p50=%.2fms p99=%.2fms max=%.2fms",
+                    label, path, concurrency, count, errors, requestsPerSecond(),
+                    percentileMs(50), percentileMs(99), percentileMs(100)));
+        }
+
+        void appendCsv(Path out, String label, String path, int concurrency) throws IOException {
+            StringBuilder line = new StringBuilder();
+            if (!Files.exists(out)) {
+                line.append("time,label,endpoint,concurrency,requests,errors,rps,p50_ms,p99_ms,max_ms\n");
+            }
+            line.append(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f%n",
+                    LocalDateTime.now(), label, path, concurrency, count, errors, requestsPerSecond(),
+                    percentileMs(50), percentileMs(99), percentileMs(100)));
+            Files.writeString(out, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+}
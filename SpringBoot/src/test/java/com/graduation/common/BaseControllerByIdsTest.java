@@ -0,0 +1,133 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.graduation.dto.ByIdsResponse;
+import com.graduation.entity.Products;
+import com.graduation.service.ProductsService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * POST /{entity}/by-ids: 参数校验、按请求顺序返回、去重与 missingIds
+ */
+@ExtendWith(MockitoExtension.class)
+class BaseControllerByIdsTest {
+
+    @Mock
+    private ProductsService service;
+
+    private final BaseController<ProductsService, Products> controller = new BaseController<>();
+
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("POST", "/products/by-ids");
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Products.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "byIdsMaxSize", 3);
+        lenient().when(service.getEntityClass()).thenReturn(Products.class);
+    }
+
+    @Test
+    void emptyOrNullIdsAreRejected() {
+        assertEquals(400, controller.getByIds(null, request()).getStatusCode().value());
+        assertEquals(400, controller.getByIds(List.of(), request()).getStatusCode().value());
+        assertEquals(400, controller.getByIds(Arrays.asList(null, null), request()).getStatusCode().value());
+        verify(service, never()).listByIds(any());
+    }
+
+    @Test
+    void tooManyDistinctIdsAreRejected() {
+        List<Long> ids = LongStream.rangeClosed(1, 4).boxed().toList();
+
+        assertEquals(400, controller.getByIds(ids, request()).getStatusCode().value());
+        verify(service, never()).listByIds(any());
+    }
+
+    @Test
+    void duplicatesCountOnceTowardsTheLimit() {
+        when(service.listByIds(any())).thenReturn(List.of(product(1), product(2), product(3)));
+
+        assertEquals(200, controller.getByIds(List.of(1L, 2L, 3L, 3L, 1L), request()).getStatusCode().value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itemsFollowRequestOrderAndMissingIdsAreListed() {
+        // 数据库返回的顺序与请求无关
+        when(service.listByIds(any())).thenReturn(List.of(product(1), product(3)));
+
+        ResponseEntity<?> response = controller.getByIds(Arrays.asList(3L, null, 2L, 1L, 3L), request());
+
+        ByIdsResponse<Products> body = (ByIdsResponse<Products>) response.getBody();
+        assertEquals(List.of(3, 1), body.getItems().stream().map(Products::getId).toList());
+        assertEquals(List.of(2L), body.getMissingIds());
+        ArgumentCaptor<Collection<Long>> queried = ArgumentCaptor.forClass(Collection.class);
+        verify(service).listByIds(queried.capture());
+        assertEquals(List.of(3L, 2L, 1L), new ArrayList<>(queried.getValue()));
+    }
+
+    @Test
+    void fieldsParameterIsPassedToResponseAdvice() {
+        when(service.listByIds(any())).thenReturn(List.of(product(1)));
+        servletRequest.setParameter(FieldSelection.PARAM, "sku");
+        ServletWebRequest request = request();
+
+        controller.getByIds(List.of(1L), request);
+
+        assertNotNull(request.getAttribute(FieldSelection.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Test
+    void withoutFieldsNoSelectionIsRecorded() {
+        when(service.listByIds(any())).thenReturn(List.of());
+        ServletWebRequest request = request();
+
+        controller.getByIds(List.of(1L), request);
+
+        assertNull(request.getAttribute(FieldSelection.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    private ServletWebRequest request() {
+        return new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+    }
+
+    private static Products product(int id) {
+        Products product = new Products();
+        product.setId(id);
+        product.setSku("SKU-" + id);
+        return product;
+    }
+}
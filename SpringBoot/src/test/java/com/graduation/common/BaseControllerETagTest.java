@@ -0,0 +1,96 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.graduation.entity.Products;
+import com.graduation.service.ProductsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BaseController 的 ETag 与条件请求: If-None-Match 命中时返回 304，不查询
+ */
+@ExtendWith(MockitoExtension.class)
+class BaseControllerETagTest {
+
+    @Mock
+    private ProductsService service;
+
+    private final EntityVersions entityVersions = new EntityVersions();
+
+    private final BaseController<ProductsService, Products> controller = new BaseController<>();
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "entityVersions", entityVersions);
+        when(service.getEntityClass()).thenReturn(Products.class);
+    }
+
+    @Test
+    void firstRequestReturnsBodyWithEtag() {
+        Products product = new Products();
+        when(service.getById(1L)).thenReturn(product);
+
+        Products body = controller.getById(1L, request(null));
+
+        assertEquals(product, body);
+        assertEquals(200, response.getStatus());
+        assertEquals(entityVersions.etag(Products.class), response.getHeader(HttpHeaders.ETAG));
+        assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void matchingEtagReturns304WithoutQuerying() {
+        Products body = controller.getById(1L, request(entityVersions.etag(Products.class)));
+
+        assertNull(body);
+        assertEquals(304, response.getStatus());
+        verify(service, never()).getById(any());
+    }
+
+    @Test
+    void etagFromBeforeAWriteIsStale() {
+        Products product = new Products();
+        when(service.getById(1L)).thenReturn(product);
+        String etag = entityVersions.etag(Products.class);
+        entityVersions.bump(Products.class);
+
+        Products body = controller.getById(1L, request(etag));
+
+        assertEquals(product, body);
+        assertEquals(200, response.getStatus());
+        assertEquals(entityVersions.etag(Products.class), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void listHonoursEtagToo() {
+        assertNull(controller.list(request(entityVersions.etag(Products.class))));
+        assertEquals(304, response.getStatus());
+        verify(service, never()).list(any(Wrapper.class));
+    }
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/1");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
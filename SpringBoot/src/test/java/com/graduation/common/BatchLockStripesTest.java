@@ -0,0 +1,98 @@
+package com.graduation.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批次锁分段的分段计算、加锁顺序与统计
+ */
+class BatchLockStripesTest {
+
+    @Test
+    void stripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(64, new BatchLockStripes(64).getStripeCount());
+        assertEquals(64, new BatchLockStripes(33).getStripeCount());
+        assertEquals(2, new BatchLockStripes(1).getStripeCount());
+    }
+
+    @Test
+    void batchCodeIsCaseInsensitive() {
+        BatchLockStripes stripes = new BatchLockStripes(64);
+
+        assertEquals(stripes.stripeOf("B20261001"), stripes.stripeOf("b20261001"));
+    }
+
+    @Test
+    void sameStripeIsLockedOnceAndReleasedAfterAction() {
+        BatchLockStripes stripes = new BatchLockStripes(1);
+
+        // 同一批次重复出现 (大小写不同) 时只加一次锁，不会和自己竞争
+        String result = stripes.withLocks(List.of("A", "A", "a"), () -> "done");
+
+        assertEquals("done", result);
+        Map<String, Object> stats = stripes.stats().get(0);
+        assertEquals(1L, stats.get("acquisitions"));
+        assertEquals(0L, stats.get("contended"));
+    }
+
+    @Test
+    void lockIsReleasedWhenActionThrows() {
+        BatchLockStripes stripes = new BatchLockStripes(4);
+
+        try {
+            stripes.withLock("A", () -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException expected) {
+            // ignore
+        }
+
+        assertEquals("ok", stripes.withLock("A", () -> "ok"));
+        assertEquals(0, stripes.stats().get(0).get("queueLength"));
+    }
+
+    @Test
+    void contendedAcquisitionIsCounted() throws Exception {
+        BatchLockStripes stripes = new BatchLockStripes(4);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> stripes.withLock("A", () -> {
+                holding.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            Thread waiter = new Thread(() -> stripes.withLock("A", () -> null));
+            waiter.start();
+            while (stripes.stats().get(0).get("queueLength").equals(0)) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            waiter.join(5000);
+            assertFalse(waiter.isAlive());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> stats = stripes.stats().get(0);
+        assertEquals(2L, stats.get("acquisitions"));
+        assertEquals(1L, stats.get("contended"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.graduation.entity.Products;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.Spy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mapper 的写操作执行后按命名空间找到实体并增加版本号
+ */
+@ExtendWith(MockitoExtension.class)
+class EntityVersionInterceptorTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        assistant.setCurrentNamespace("com.graduation.mapper.ProductsMapper");
+        TableInfoHelper.initTableInfo(assistant, Products.class);
+    }
+
+    @Spy
+    private EntityVersions entityVersions = new EntityVersions();
+
+    @Mock
+    private Executor executor;
+
+    @Mock
+    private MappedStatement statement;
+
+    @InjectMocks
+    private EntityVersionInterceptor interceptor;
+
+    @Test
+    void mapperWriteBumpsItsEntity() throws Throwable {
+        when(statement.getId()).thenReturn("com.graduation.mapper.ProductsMapper.updateById");
+        when(executor.update(statement, null)).thenReturn(1);
+
+        Object result = interceptor.intercept(invocation());
+
+        assertEquals(1, result);
+        assertEquals(1, entityVersions.current(Products.class));
+    }
+
+    @Test
+    void statementOfUnknownMapperIsIgnored() throws Throwable {
+        when(statement.getId()).thenReturn("com.graduation.mapper.NotAMapper.insert");
+
+        interceptor.intercept(invocation());
+
+        assertEquals(0, entityVersions.current(Products.class));
+    }
+
+    private Invocation invocation() throws NoSuchMethodException {
+        return new Invocation(executor, Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{statement, null});
+    }
+}
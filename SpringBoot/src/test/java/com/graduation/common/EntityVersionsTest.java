@@ -0,0 +1,85 @@
+package com.graduation.common;
+
+import com.graduation.entity.Inventory;
+import com.graduation.entity.Products;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 实体版本号与 ETag: 只在提交后增加，回滚时不变
+ */
+class EntityVersionsTest {
+
+    private final EntityVersions versions = new EntityVersions();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void etagCarriesTypeEpochAndVersion() {
+        versions.bump(Products.class);
+
+        assertEquals("\"Products-" + versions.epoch() + "-1\"", versions.etag(Products.class));
+    }
+
+    @Test
+    void typesAreVersionedIndependently() {
+        String inventoryEtag = versions.etag(Inventory.class);
+
+        versions.bump(Products.class);
+
+        assertEquals(inventoryEtag, versions.etag(Inventory.class));
+        assertEquals(1, versions.current(Products.class));
+    }
+
+    @Test
+    void bumpWithoutTransactionIsImmediate() {
+        versions.bumpAfterCommit(Products.class);
+
+        assertEquals(1, versions.current(Products.class));
+    }
+
+    @Test
+    void bumpWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        versions.bumpAfterCommit(Products.class);
+        assertEquals(0, versions.current(Products.class));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertEquals(1, versions.current(Products.class));
+    }
+
+    @Test
+    void rollbackKeepsVersion() {
+        String before = versions.etag(Products.class);
+        TransactionSynchronizationManager.initSynchronization();
+        versions.bumpAfterCommit(Products.class);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertEquals(before, versions.etag(Products.class));
+    }
+
+    @Test
+    void restartInvalidatesEtags() throws InterruptedException {
+        String before = versions.etag(Products.class);
+        Thread.sleep(5); // epoch 精确到毫秒
+
+        assertNotEquals(before, new EntityVersions().etag(Products.class));
+    }
+}
@@ -0,0 +1,85 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graduation.dto.ByIdsResponse;
+import com.graduation.entity.Users;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 按请求中的 FieldSelection 裁剪 JSON 响应
+ */
+class FieldSelectionAdviceTest {
+
+    private final FieldSelectionAdvice advice = new FieldSelectionAdvice();
+
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/users/list");
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Users.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(advice, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void bodyIsUntouchedWithoutSelection() {
+        Users user = user(1);
+
+        assertSame(user, write(user));
+    }
+
+    @Test
+    void entityListKeepsOnlySelectedProperties() {
+        servletRequest.setAttribute(FieldSelection.ATTRIBUTE, FieldSelection.of(Users.class, "username"));
+
+        JsonNode tree = (JsonNode) write(List.of(user(1), user(2)));
+
+        assertEquals("[{\"username\":\"user1\"},{\"username\":\"user2\"}]", tree.toString());
+    }
+
+    @Test
+    void byIdsResponseIsTrimmedInsideItemsOnly() {
+        servletRequest.setAttribute(FieldSelection.ATTRIBUTE, FieldSelection.of(Users.class, "id"));
+        ByIdsResponse<Users> body = new ByIdsResponse<>();
+        body.getItems().add(user(1));
+        body.getMissingIds().add(9L);
+
+        JsonNode tree = (JsonNode) write(body);
+
+        assertEquals("{\"items\":[{\"id\":1}],\"missingIds\":[9]}", tree.toString());
+    }
+
+    private Object write(Object body) {
+        return advice.beforeBodyWrite(body, null, MediaType.APPLICATION_JSON, MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(servletRequest), new ServletServerHttpResponse(new MockHttpServletResponse()));
+    }
+
+    private static Users user(int id) {
+        Users user = new Users();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPasswordHash("secret");
+        return user;
+    }
+}
@@ -0,0 +1,67 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.graduation.entity.Users;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ?fields= 的解析与校验: 只接受表结构中的属性，密码字段不能选择，主键总是查询
+ */
+class FieldSelectionTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Users.class);
+    }
+
+    @Test
+    void blankFieldsMeanWholeEntity() {
+        assertNull(FieldSelection.of(Users.class, null));
+        assertNull(FieldSelection.of(Users.class, " "));
+        assertNull(FieldSelection.of(Users.class, " , ,"));
+    }
+
+    @Test
+    void keyColumnIsAlwaysSelected() {
+        FieldSelection selection = FieldSelection.of(Users.class, "username, fullName");
+
+        assertEquals(List.of("username", "fullName"), List.copyOf(selection.properties()));
+        assertEquals("id,username,full_name", selection.select(new QueryWrapper<Users>()).getSqlSelect());
+    }
+
+    @Test
+    void requiredColumnsAreAddedOnce() {
+        FieldSelection selection = FieldSelection.of(Users.class, "id,createdAt");
+
+        assertEquals("id,created_at,username",
+                selection.select(new QueryWrapper<Users>(), "created_at", "id", "username").getSqlSelect());
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.of(Users.class, "username,salary"));
+        // 只接受属性名，不接受列名
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.of(Users.class, "full_name"));
+    }
+
+    @Test
+    void passwordCannotBeSelected() {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.of(Users.class, "passwordHash"));
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.of(Users.class, "id,PasswordHash"));
+    }
+
+    @Test
+    void entityWithoutTableInfoIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FieldSelection.of(String.class, "id"));
+    }
+}
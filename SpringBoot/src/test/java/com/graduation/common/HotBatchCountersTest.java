@@ -0,0 +1,129 @@
+package com.graduation.common;
+
+import com.graduation.entity.Inventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 热点批次计数器的预留 / 确认 / 回滚
+ */
+class HotBatchCountersTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final EntityVersions entityVersions = mock(EntityVersions.class);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void outboundReservationIsReturnedOnRollback() {
+        HotBatchCounters.Counter counter = counter(10);
+
+        assertEquals(7, counter.tryApply(-3));
+        assertEquals(7, counter.getQuantity());
+
+        counter.rollback(-3, jdbcTemplate, entityVersions);
+        assertEquals(10, counter.getQuantity());
+        assertEquals(0, counter.getPendingDelta());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void reservationBlocksConcurrentOverdraw() {
+        HotBatchCounters.Counter counter = counter(5);
+
+        assertEquals(1, counter.tryApply(-4));
+        assertEquals(HotBatchCounters.INSUFFICIENT, counter.tryApply(-2));
+
+        counter.rollback(-4, jdbcTemplate, entityVersions);
+        assertEquals(3, counter.tryApply(-2));
+    }
+
+    @Test
+    void inboundIsNotSpendableUntilCommit() {
+        HotBatchCounters.Counter counter = counter(0);
+
+        assertEquals(5, counter.tryApply(5));
+        assertEquals(0, counter.getQuantity());
+        assertEquals(HotBatchCounters.INSUFFICIENT, counter.tryApply(-1));
+
+        counter.commit(5, jdbcTemplate, entityVersions);
+        assertEquals(5, counter.getQuantity());
+        assertEquals(5, counter.getPendingDelta());
+        assertEquals(4, counter.tryApply(-1));
+    }
+
+    @Test
+    void rolledBackInboundLeavesNoTrace() {
+        HotBatchCounters.Counter counter = counter(2);
+
+        counter.tryApply(5);
+        counter.rollback(5, jdbcTemplate, entityVersions);
+
+        assertEquals(2, counter.getQuantity());
+        assertEquals(0, counter.getPendingDelta());
+    }
+
+    @Test
+    void committedOutboundBecomesPendingDelta() {
+        HotBatchCounters.Counter counter = counter(10);
+
+        counter.tryApply(-4);
+        counter.commit(-4, jdbcTemplate, entityVersions);
+
+        assertEquals(6, counter.getQuantity());
+        assertEquals(-4, counter.getPendingDelta());
+    }
+
+    @Test
+    void rollbackAfterCloseReturnsReservationToInventoryRow() {
+        HotBatchCounters.Counter counter = counter(10);
+
+        counter.tryApply(-3);
+        counter.close();
+        counter.rollback(-3, jdbcTemplate, entityVersions);
+
+        verify(jdbcTemplate).update(anyString(), eq(3), eq(1001));
+        assertEquals(HotBatchCounters.CLOSED, counter.tryApply(-1));
+    }
+
+    @Test
+    void settleOnCompletionFollowsTransactionOutcome() {
+        HotBatchCounters.Counter counter = counter(10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        counter.tryApply(-6);
+        counter.settleOnCompletion(-6, jdbcTemplate, entityVersions);
+        counter.tryApply(2);
+        counter.settleOnCompletion(2, jdbcTemplate, entityVersions);
+        assertEquals(4, counter.getQuantity());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(10, counter.getQuantity());
+        assertEquals(0, counter.getPendingDelta());
+    }
+
+    private static HotBatchCounters.Counter counter(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(1001);
+        inventory.setBatchCode("B-HOT");
+        inventory.setQuantity(quantity);
+        return new HotBatchCounters.Counter(inventory);
+    }
+}
@@ -0,0 +1,139 @@
+package com.graduation.common;
+
+import com.graduation.dto.ScanResponse;
+import com.graduation.entity.Inventory;
+import com.graduation.entity.Products;
+import com.graduation.repository.InventoryRepository;
+import com.graduation.repository.ProductsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批次号索引的加载、副本隔离、事务提交后更新与失效
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryBatchIndexTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ProductsRepository productsRepository;
+
+    private final ProductCache productCache = new ProductCache(100, 0);
+
+    private final InventoryBatchIndex index = new InventoryBatchIndex(100);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productCache, "productsRepository", productsRepository);
+        ReflectionTestUtils.setField(index, "inventoryRepository", inventoryRepository);
+        ReflectionTestUtils.setField(index, "batchLocks", new BatchLockStripes(4));
+        ReflectionTestUtils.setField(index, "productCache", productCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void missIsLoadedOnceAndLookupIsCaseInsensitive() {
+        when(inventoryRepository.findScanResponseByBatchCode("B001")).thenReturn(Optional.of(row(10)));
+
+        assertEquals(10, index.get("B001").getQuantity());
+        assertEquals(10, index.get("b001").getQuantity());
+
+        verify(inventoryRepository, times(1)).findScanResponseByBatchCode("B001");
+    }
+
+    @Test
+    void callersGetCopies() {
+        when(inventoryRepository.findScanResponseByBatchCode("B001")).thenReturn(Optional.of(row(10)));
+
+        index.get("B001").setQuantity(999);
+
+        assertEquals(10, index.get("B001").getQuantity());
+    }
+
+    @Test
+    void unknownBatchIsNotCached() {
+        when(inventoryRepository.findScanResponseByBatchCode("NOPE")).thenReturn(Optional.empty());
+
+        assertNull(index.get("NOPE"));
+        assertNull(index.get("NOPE"));
+
+        verify(inventoryRepository, times(2)).findScanResponseByBatchCode("NOPE");
+    }
+
+    @Test
+    void joinedProductIsPutIntoProductCache() {
+        when(inventoryRepository.findScanResponseByBatchCode("B001")).thenReturn(Optional.of(row(10)));
+
+        index.get("B001");
+
+        assertEquals("SKU-1", productCache.getById(7).getSku());
+        verifyNoInteractions(productsRepository);
+    }
+
+    @Test
+    void updateIsVisibleOnlyAfterCommit() {
+        when(inventoryRepository.findScanResponseByBatchCode("B001")).thenReturn(Optional.of(row(10)));
+        index.get("B001");
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.putAfterCommit(inventory(11));
+        assertEquals(10, index.get("B001").getQuantity());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(11, index.get("B001").getQuantity());
+    }
+
+    @Test
+    void invalidatedBatchIsReloaded() {
+        when(inventoryRepository.findScanResponseByBatchCode("B001"))
+                .thenReturn(Optional.of(row(10)), Optional.of(row(12)));
+        index.get("B001");
+
+        index.invalidate("b001");
+
+        assertEquals(12, index.get("B001").getQuantity());
+    }
+
+    private static ScanResponse row(int quantity) {
+        Products product = new Products();
+        product.setId(7);
+        product.setSku("SKU-1");
+        return new ScanResponse(inventory(quantity), product);
+    }
+
+    private static Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(1);
+        inventory.setProductId(7);
+        inventory.setBatchCode("B001");
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,113 @@
+package com.graduation.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.graduation.entity.SystemLogs;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 游标的编码/解码，以及生成的排序和翻页条件
+ */
+class KeysetQueryTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), SystemLogs.class);
+    }
+
+    @Test
+    void firstPageOrdersByIdAscending() {
+        QueryWrapper<SystemLogs> wrapper = KeysetQuery.of(SystemLogs.class, null, null, null)
+                .wrapper(Collections.emptyMap(), 51);
+
+        String sql = sql(wrapper);
+        assertTrue(sql.endsWith("ORDERBYidASCLIMIT51"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().isEmpty());
+    }
+
+    @Test
+    void cursorResumesAfterLastIdInSameOrder() {
+        KeysetQuery<SystemLogs> first = KeysetQuery.of(SystemLogs.class, null, "id", "desc");
+        String cursor = first.cursorAfter(log(42L, null));
+
+        // 翻页时以游标中记录的排序方式为准，忽略 sort 和 order
+        QueryWrapper<SystemLogs> wrapper = KeysetQuery.of(SystemLogs.class, cursor, "createdAt", "asc")
+                .wrapper(Collections.emptyMap(), 11);
+
+        String sql = sql(wrapper);
+        assertTrue(sql.startsWith("(id<"), sql);
+        assertTrue(sql.endsWith("ORDERBYidDESCLIMIT11"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().containsValue(42L));
+    }
+
+    @Test
+    void createdAtCursorCarriesBothSortKeys() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 1, 8, 30, 15);
+        String cursor = KeysetQuery.of(SystemLogs.class, null, KeysetQuery.SORT_CREATED_AT, "desc")
+                .cursorAfter(log(7L, createdAt));
+
+        KeysetQuery<SystemLogs> next = KeysetQuery.of(SystemLogs.class, cursor, null, null);
+        QueryWrapper<SystemLogs> wrapper = next.wrapper(Map.of("action", "DELETE_USER"), 21);
+
+        String sql = sql(wrapper);
+        assertTrue(sql.contains("created_at<"), sql);
+        assertTrue(sql.contains("created_at=") && sql.contains("id<"), sql);
+        assertTrue(sql.endsWith("ORDERBYcreated_atDESC,idDESCLIMIT21"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().containsValue(createdAt));
+        assertTrue(wrapper.getParamNameValuePairs().containsValue(7L));
+        assertTrue(wrapper.getParamNameValuePairs().containsValue("DELETE_USER"));
+        assertArrayEquals(new String[]{"id", "created_at"}, next.keyColumns());
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = KeysetQuery.of(SystemLogs.class, null, KeysetQuery.SORT_CREATED_AT, "asc")
+                .cursorAfter(log(123456789L, LocalDateTime.of(2026, 1, 2, 3, 4, 5)));
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+        assertNotEquals(cursor, KeysetQuery.of(SystemLogs.class, null, KeysetQuery.SORT_CREATED_AT, "desc")
+                .cursorAfter(log(123456789L, LocalDateTime.of(2026, 1, 2, 3, 4, 5))));
+    }
+
+    @Test
+    void rejectsBadParameters() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetQuery.of(SystemLogs.class, "not-a-cursor", null, null));
+        assertThrows(IllegalArgumentException.class, () -> KeysetQuery.of(SystemLogs.class, null, "details", null));
+        assertThrows(IllegalArgumentException.class, () -> KeysetQuery.of(SystemLogs.class, null, null, "sideways"));
+        KeysetQuery<SystemLogs> query = KeysetQuery.of(SystemLogs.class, null, null, null);
+        assertThrows(IllegalArgumentException.class, () -> query.wrapper(Map.of("no_such_field", "1"), 10));
+    }
+
+    @Test
+    void keyColumnsForIdSort() {
+        assertEquals(1, KeysetQuery.of(SystemLogs.class, null, null, null).keyColumns().length);
+    }
+
+    /**
+     * 去掉空白后的条件片段，便于断言，不依赖 MyBatis-Plus 拼接时的空格
+     */
+    private static String sql(QueryWrapper<?> wrapper) {
+        return wrapper.getSqlSegment().replaceAll("#\\{[^}]*}", "").replaceAll("\\s+", "");
+    }
+
+    private static SystemLogs log(Long id, LocalDateTime createdAt) {
+        SystemLogs log = new SystemLogs();
+        log.setId(id);
+        log.setAction("DELETE_USER");
+        log.setCreatedAt(createdAt);
+        return log;
+    }
+}
@@ -0,0 +1,164 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异动日志导出的过滤条件、CSV 转义、NDJSON 输出与客户端断开
+ */
+@ExtendWith(MockitoExtension.class)
+class LedgerExporterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private final LedgerExporter exporter = new LedgerExporter();
+
+    private static final LedgerExporter.Filter ALL = new LedgerExporter.Filter(null, null, null, null, null);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exporter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(exporter, "objectMapper", new ObjectMapper());
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    void csvEscapesSeparatorsQuotesNewlinesAndFormulas() throws Exception {
+        rows(row(1, "入库", "含,逗号"), row(2, "出库", "说\"明\"\n第二行"), row(3, "入库", "=SUM(A1)"), row(4, "入库", null));
+
+        String csv = exportCsv();
+
+        List<String> lines = List.of(csv.substring(1).split("\r\n"));
+        assertEquals('﻿', csv.charAt(0));
+        assertEquals("id,inventory_id,user_id,type,quantity_change,quantity_after_transaction,notes,client_scan_id,created_at",
+                lines.get(0));
+        assertEquals("1,1001,3,入库,1,11,\"含,逗号\",s1,2026-10-01 08:30:00", lines.get(1));
+        assertTrue(csv.contains(",\"说\"\"明\"\"\n第二行\",s2,"), csv);
+        assertTrue(csv.contains("\r\n3,1001,3,入库,1,11,'=SUM(A1),s3,"), csv);
+        assertTrue(csv.contains("\r\n4,1001,3,入库,1,11,,s4,2026-10-01 08:30:00\r\n"), csv);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        rows(row(1, "入库", "a\"b"), row(2, "出库", null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = exporter.export(ALL, LedgerExporter.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        Map<?, ?> first = new ObjectMapper().readValue(lines[0], Map.class);
+        assertEquals("a\"b", first.get("notes"));
+        assertEquals("2026-10-01 08:30:00", first.get("createdAt"));
+        assertNull(new ObjectMapper().readValue(lines[1], Map.class).get("notes"));
+    }
+
+    @Test
+    void filtersBecomeBoundParametersInIndexOrder() throws Exception {
+        rows();
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 11, 1, 0, 0);
+
+        exporter.export(new LedgerExporter.Filter(from, to, "入库", 3, null), LedgerExporter.Format.CSV, new ByteArrayOutputStream());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture(), anyInt(), anyInt());
+        assertTrue(sql.getValue().endsWith("WHERE 1 = 1 AND created_at >= ? AND created_at < ? AND type = ? AND user_id = ? "
+                + "ORDER BY created_at, id"), sql.getValue());
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        verify(statement).setObject(1, Timestamp.valueOf(from));
+        verify(statement).setObject(2, Timestamp.valueOf(to));
+        verify(statement).setObject(3, "入库");
+        verify(statement).setObject(4, 3);
+    }
+
+    @Test
+    void clientDisconnectCancelsQueryAndRethrowsIOException() throws Exception {
+        rows(row(1, "入库", null));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> exporter.export(ALL, LedgerExporter.Format.NDJSON, broken));
+
+        assertEquals("Broken pipe", e.getMessage());
+        verify(statement).cancel();
+    }
+
+    private String exportCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(ALL, LedgerExporter.Format.CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 让结果集依次返回这些行
+     */
+    private void rows(Object[]... rows) throws Exception {
+        int[] cursor = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++cursor[0] < rows.length);
+        if (rows.length == 0) {
+            return;
+        }
+        when(resultSet.getLong("id")).thenAnswer(invocation -> rows[cursor[0]][0]);
+        when(resultSet.getString("type")).thenAnswer(invocation -> rows[cursor[0]][1]);
+        when(resultSet.getString("notes")).thenAnswer(invocation -> rows[cursor[0]][2]);
+        when(resultSet.getString("client_scan_id")).thenAnswer(invocation -> "s" + rows[cursor[0]][0]);
+        when(resultSet.getInt("inventory_id")).thenReturn(1001);
+        when(resultSet.getInt("user_id")).thenReturn(3);
+        when(resultSet.getInt("quantity_change")).thenReturn(1);
+        when(resultSet.getInt("quantity_after_transaction")).thenReturn(11);
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.of(2026, 10, 1, 8, 30)));
+    }
+
+    private static Object[] row(long id, String type, String notes) {
+        return new Object[]{id, type, notes};
+    }
+}
@@ -0,0 +1,153 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.graduation.entity.TransactionLogs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异动日志 journal 的追加、提交/作废标记与重启后重放
+ */
+class LedgerJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysOnlyUnsettledRecords() throws IOException {
+        LedgerJournal journal = open();
+        LedgerJournal.Record committed = journal.append(log("a"));
+        LedgerJournal.Record aborted = journal.append(log("b"));
+        LedgerJournal.Record pending = journal.append(log("c"));
+        journal.markCommitted(List.of(committed));
+        journal.markAborted(List.of(aborted));
+        journal.close();
+
+        List<LedgerJournal.Record> replay = replay();
+
+        assertEquals(1, replay.size());
+        assertEquals(pending.seq(), replay.get(0).seq());
+        assertEquals("c", replay.get(0).clientScanId());
+        assertEquals(LocalDateTime.of(2026, 10, 1, 8, 30), replay.get(0).createdAt());
+    }
+
+    @Test
+    void commitMarkerWaitsForEarlierRecords() throws IOException {
+        LedgerJournal journal = open();
+        LedgerJournal.Record first = journal.append(log("a"));
+        LedgerJournal.Record second = journal.append(log("b"));
+
+        // 后追加的记录先写库 (事务提交顺序与序号不一致)，提交标记不能越过还没写库的第一条
+        journal.markCommitted(List.of(second));
+        assertEquals(0, journal.getLastCommittedSeq());
+        journal.close();
+
+        List<LedgerJournal.Record> replay = replay();
+        assertEquals(2, replay.size());
+        assertEquals(first.seq(), replay.get(0).seq());
+    }
+
+    @Test
+    void sequenceContinuesAfterRestart() throws IOException {
+        LedgerJournal journal = open();
+        journal.append(log("a"));
+        LedgerJournal.Record last = journal.append(log("b"));
+        journal.markAborted(List.of(last));
+        journal.close();
+
+        LedgerJournal reopened = open();
+        assertEquals(last.seq() + 1, reopened.append(log("c")).seq());
+        reopened.close();
+    }
+
+    @Test
+    void fullySettledJournalIsTruncated() throws IOException {
+        LedgerJournal journal = open();
+        LedgerJournal.Record a = journal.append(log("a"));
+        LedgerJournal.Record b = journal.append(log("b"));
+        journal.markCommitted(List.of(a, b));
+        journal.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve("transaction_logs.journal"), StandardCharsets.UTF_8);
+        assertEquals(List.of("C\t" + b.seq()), lines);
+    }
+
+    @Test
+    void ignoresHalfWrittenLastLine() throws IOException {
+        LedgerJournal journal = open();
+        journal.append(log("a"));
+        journal.close();
+        // 模拟崩溃时只写了一半的最后一行
+        Files.writeString(dir.resolve("transaction_logs.journal"), "E\t{\"seq\":2,\"inv",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(1, replay().size());
+        LedgerJournal reopened = open();
+        assertEquals(2, reopened.append(log("b")).seq());
+        reopened.close();
+        assertEquals(2, replay().size());
+    }
+
+    @Test
+    void quarantinedRecordIsNotReplayed() throws IOException {
+        LedgerJournal journal = open();
+        LedgerJournal.Record bad = journal.append(log("bad"));
+        journal.quarantine(bad, "Cannot add or update a child row");
+        journal.close();
+
+        assertTrue(replay().isEmpty());
+        String quarantined = Files.readString(journal.quarantineFile(), StandardCharsets.UTF_8);
+        assertTrue(quarantined.contains("\"clientScanId\":\"bad\""));
+        assertTrue(quarantined.contains("Cannot add or update a child row"));
+    }
+
+    /**
+     * 创建并打开 journal (模拟一次进程启动)
+     */
+    private LedgerJournal open() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir.resolve("transaction_logs.journal"), false, objectMapper);
+        journal.open();
+        return journal;
+    }
+
+    /**
+     * 模拟重启: 重新打开 journal，返回需要重放的记录
+     */
+    private List<LedgerJournal.Record> replay() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir.resolve("transaction_logs.journal"), false, objectMapper);
+        try {
+            return journal.open();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private static TransactionLogs log(String clientScanId) {
+        TransactionLogs log = new TransactionLogs();
+        log.setInventoryId(1001);
+        log.setUserId(3);
+        log.setType("入库");
+        log.setQuantityChange(1);
+        log.setQuantityAfterTransaction(11);
+        log.setClientScanId(clientScanId);
+        log.setCreatedAt(LocalDateTime.of(2026, 10, 1, 8, 30));
+        return log;
+    }
+}
@@ -0,0 +1,175 @@
+package com.graduation.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.graduation.entity.TransactionLogs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 异步模式下异动日志的写库、journal 重放、重复记录隔离与扫码ID固定
+ */
+@ExtendWith(MockitoExtension.class)
+class LedgerWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityVersions entityVersions;
+
+    // 容量为 1，写入另一个ID就会淘汰前一个
+    private final ScanIdempotencyCache idempotencyCache = new ScanIdempotencyCache(1);
+
+    private final LedgerWriter writer = new LedgerWriter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(writer, "entityVersions", entityVersions);
+        ReflectionTestUtils.setField(writer, "idempotencyCache", idempotencyCache);
+        ReflectionTestUtils.setField(writer, "mode", "async");
+        ReflectionTestUtils.setField(writer, "bufferSize", 16);
+        ReflectionTestUtils.setField(writer, "groupSize", 4);
+        ReflectionTestUtils.setField(writer, "groupCommitMs", 1L);
+        ReflectionTestUtils.setField(writer, "journalDir", dir.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.stop();
+    }
+
+    @Test
+    void liveWriteIsInsertedWithoutOnDuplicate() throws Exception {
+        writer.start();
+
+        writer.write(log("s1"));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, timeout(2000)).update(sql.capture(), any(Object[].class));
+        assertFalse(sql.getValue().contains("ON DUPLICATE KEY"));
+    }
+
+    @Test
+    void journalReplayIsInsertedWithOnDuplicate() throws Exception {
+        LedgerJournal journal = new LedgerJournal(dir.resolve("transaction_logs.journal"), false, objectMapper);
+        journal.open();
+        journal.append(log("s1"));
+        journal.close();
+
+        writer.start();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, timeout(2000)).update(sql.capture(), any(Object[].class));
+        assertTrue(sql.getValue().endsWith("ON DUPLICATE KEY UPDATE id = id"));
+    }
+
+    @Test
+    void liveDuplicateIsQuarantinedInsteadOfDropped() throws Exception {
+        doThrow(new DuplicateKeyException("Duplicate entry 's1' for key 'uk_client_scan_id'"))
+                .when(jdbcTemplate).update(anyString(), any(Object[].class));
+        writer.start();
+
+        writer.write(log("s1"));
+
+        Path quarantine = dir.resolve("transaction_logs.journal.quarantine");
+        awaitTrue(() -> idempotencyCache.get("s1") == null);
+        String quarantined = Files.readString(quarantine, StandardCharsets.UTF_8);
+        assertTrue(quarantined.contains("\"clientScanId\":\"s1\""));
+        assertTrue(quarantined.contains("uk_client_scan_id"));
+    }
+
+    @Test
+    void committedScanIdStaysPinnedUntilPersisted() throws Exception {
+        CountDownLatch persisted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            persisted.await(5, TimeUnit.SECONDS);
+            return 1;
+        }).when(jdbcTemplate).update(anyString(), any(Object[].class));
+        writer.start();
+
+        TransactionSynchronizationManager.initSynchronization();
+        writer.write(log("s1"));
+        assertNull(idempotencyCache.get("s1")); // 提交前不可见
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // LRU 淘汰不影响还没写库的扫码ID
+        idempotencyCache.put("other", log("other"));
+        assertNotNull(idempotencyCache.get("s1"));
+
+        persisted.countDown();
+        awaitTrue(() -> idempotencyCache.get("s1") == null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 2s");
+            Thread.sleep(10);
+        }
+    }
+
+    private static TransactionLogs log(String clientScanId) {
+        TransactionLogs log = new TransactionLogs();
+        log.setInventoryId(1001);
+        log.setUserId(3);
+        log.setType("入库");
+        log.setQuantityChange(1);
+        log.setQuantityAfterTransaction(11);
+        log.setClientScanId(clientScanId);
+        log.setCreatedAt(LocalDateTime.of(2026, 10, 1, 8, 30));
+        return log;
+    }
+}
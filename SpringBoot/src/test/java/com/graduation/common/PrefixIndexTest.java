@@ -0,0 +1,92 @@
+package com.graduation.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 前缀索引的查询、增删改与全量重建
+ */
+class PrefixIndexTest {
+
+    @Test
+    void suggestIsCaseInsensitiveSortedAndLimited() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("B20261002");
+        index.add("b20261001");
+        index.add("B20261003");
+        index.add("C20261001");
+
+        assertEquals(List.of("b20261001", "B20261002"), index.suggest("b2026", 2));
+        assertEquals(List.of("C20261001"), index.suggest(" c ", 10));
+    }
+
+    @Test
+    void blankPrefixOrNonPositiveLimitReturnsNothing() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("B001");
+
+        assertTrue(index.suggest(" ", 10).isEmpty());
+        assertTrue(index.suggest(null, 10).isEmpty());
+        assertTrue(index.suggest("B", 0).isEmpty());
+    }
+
+    @Test
+    void replaceMovesValueAndKeepsCaseOnlyChanges() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("SKU-OLD");
+
+        index.replace("SKU-OLD", "SKU-NEW");
+        index.replace("SKU-NEW", "sku-new");
+
+        assertEquals(List.of("sku-new"), index.suggest("sku", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void changesMadeWhileLoadingAreReplayedOntoRebuiltIndex() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("A1");
+
+        index.rebuild(() -> {
+            // 加载期间并发的增删，返回的快照是在它们之前读到的
+            index.add("B2");
+            index.remove("A1");
+            return List.of("A1", "C3");
+        });
+
+        assertEquals(List.of("B2"), index.suggest("b", 10));
+        assertTrue(index.suggest("a", 10).isEmpty());
+        assertEquals(List.of("C3"), index.suggest("c", 10));
+    }
+
+    @Test
+    void failedLoadKeepsCurrentEntries() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("A1");
+
+        assertThrows(IllegalStateException.class, () -> index.rebuild(() -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(List.of("A1"), index.suggest("a", 10));
+    }
+
+    @Test
+    void changesBeforeRebuildAreNotReplayed() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("A1");
+        index.rebuild(() -> List.of("A1"));
+
+        // 加载开始之前的增删已经反映在数据库快照中，以快照为准
+        index.add("B2");
+        index.rebuild(() -> List.of("C3"));
+
+        assertEquals(List.of("C3"), index.suggest("c", 10));
+        assertEquals(1, index.size());
+    }
+}
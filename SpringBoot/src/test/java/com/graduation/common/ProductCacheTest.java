@@ -0,0 +1,113 @@
+package com.graduation.common;
+
+import com.graduation.entity.Products;
+import com.graduation.repository.ProductsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 产品缓存按 ID / SKU 查询、批量查询与失效
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCacheTest {
+
+    @Mock
+    private ProductsRepository productsRepository;
+
+    private final ProductCache cache = new ProductCache(100, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "productsRepository", productsRepository);
+    }
+
+    @Test
+    void byIdIsLoadedOnceAndReturnsCopies() {
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")));
+
+        cache.getById(1).setName("changed by caller");
+
+        assertEquals("name-1", cache.getById(1).getName());
+        verify(productsRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void skuLookupIsCaseInsensitiveAndSharesTheIdEntry() {
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")));
+        cache.getById(1);
+
+        assertEquals(1, cache.getBySku("sku-1").getId());
+
+        verify(productsRepository, times(0)).findBySku("sku-1");
+    }
+
+    @Test
+    void staleSkuMappingIsTreatedAsMiss() {
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")), Optional.of(product(1, "SKU-2")));
+        when(productsRepository.findBySku("SKU-1")).thenReturn(Optional.empty());
+        cache.getById(1);
+        cache.invalidate(1);
+        cache.getById(1); // SKU 已改为 SKU-2
+
+        assertNull(cache.getBySku("SKU-1"));
+    }
+
+    @Test
+    void batchLookupLoadsOnlyMisses() {
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")));
+        when(productsRepository.findAllById(List.of(2, 3))).thenReturn(List.of(product(2, "SKU-2")));
+        cache.getById(1);
+
+        Map<Integer, Products> found = cache.getAllById(List.of(1, 2, 3));
+
+        assertEquals(2, found.size());
+        assertEquals("SKU-2", found.get(2).getSku());
+        assertEquals("SKU-2", cache.getById(2).getSku());
+    }
+
+    @Test
+    void invalidationDuringLoadKeepsLoadedValueOutOfCache() {
+        long loadedAt = cache.generation();
+        cache.invalidate(1);
+
+        cache.putIfUnchanged(product(1, "SKU-1"), loadedAt);
+
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")));
+        cache.getById(1);
+        verify(productsRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void invalidateAllDropsEveryEntry() {
+        when(productsRepository.findById(1)).thenReturn(Optional.of(product(1, "SKU-1")));
+        cache.getById(1);
+
+        cache.invalidateAll();
+        cache.getById(1);
+
+        verify(productsRepository, times(2)).findById(1);
+        assertEquals(1, cache.stats().get("size"));
+    }
+
+    private static Products product(int id, String sku) {
+        Products product = new Products();
+        product.setId(id);
+        product.setSku(sku);
+        product.setName("name-" + id);
+        return product;
+    }
+}
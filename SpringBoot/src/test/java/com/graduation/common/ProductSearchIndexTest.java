@@ -0,0 +1,151 @@
+package com.graduation.common;
+
+import com.graduation.dto.ProductSearchResponse;
+import com.graduation.entity.Products;
+import com.graduation.repository.ProductsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * 产品全文索引的子串匹配、打分排序、分页、单个更新与全量重建
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductsRepository productsRepository;
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "productsRepository", productsRepository);
+        ReflectionTestUtils.setField(index, "maxPageSize", 100);
+    }
+
+    @Test
+    void matchesAnyChineseSubstringWithoutSegmentation() {
+        index.index(product(1, "不锈钢螺丝", "M6 六角"));
+
+        assertEquals(List.of(1), ids(index.search("钢螺", 1, 10)));
+        assertEquals(List.of(1), ids(index.search("螺", 1, 10)));
+        assertEquals(List.of(1), ids(index.search("六角", 1, 10)));
+    }
+
+    @Test
+    void bigramsThatAreNotContiguousDoNotMatch() {
+        // "钢螺" 和 "螺丝" 都在，但 "钢丝" 不是连续出现的子串
+        index.index(product(1, "不锈钢螺丝", null));
+        index.index(product(2, "钢丝", null));
+
+        assertEquals(List.of(2), ids(index.search("钢丝", 1, 10)));
+    }
+
+    @Test
+    void everyTermMustMatchCaseInsensitively() {
+        index.index(product(1, "Hex Bolt", "stainless"));
+        index.index(product(2, "Hex Nut", "zinc"));
+
+        assertEquals(List.of(1), ids(index.search("HEX  stainless", 1, 10)));
+        assertTrue(index.search("hex brass", 1, 10).getItems().isEmpty());
+        assertTrue(index.search("   ", 1, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void exactNameThenNamePrefixThenNameThenDescription() {
+        index.index(product(1, "说明里有螺母", "螺母"));
+        index.index(product(2, "六角螺母", null));
+        index.index(product(3, "螺母垫片", null));
+        index.index(product(4, "螺母", null));
+        index.index(product(5, "其他", "配套螺母"));
+
+        assertEquals(List.of(4, 3, 1, 2, 5), ids(index.search("螺母", 1, 10)));
+    }
+
+    @Test
+    void sameScoreIsOrderedByShorterNameThenId() {
+        index.index(product(3, "螺母套装", null));
+        index.index(product(1, "螺母套装", null));
+        index.index(product(2, "螺母大号套装", null));
+
+        assertEquals(List.of(1, 3, 2), ids(index.search("螺母", 1, 10)));
+    }
+
+    @Test
+    void pagesAreSlicedAfterSortingAndSizeIsCapped() {
+        for (int id = 1; id <= 5; id++) {
+            index.index(product(id, "螺丝" + id, null));
+        }
+
+        ProductSearchResponse second = index.search("螺丝", 2, 2);
+        assertEquals(5, second.getTotal());
+        assertEquals(List.of(3, 4), ids(second));
+        assertTrue(index.search("螺丝", 4, 2).getItems().isEmpty());
+        assertEquals(100, index.search("螺丝", 1, 1000).getSize());
+    }
+
+    @Test
+    void reindexDropsOldTextAndRemoveDropsProduct() {
+        index.index(product(1, "螺丝", null));
+        index.index(product(1, "垫片", null));
+
+        assertTrue(index.search("螺丝", 1, 10).getItems().isEmpty());
+        assertEquals(List.of(1), ids(index.search("垫片", 1, 10)));
+
+        index.remove(1);
+        assertTrue(index.search("垫片", 1, 10).getItems().isEmpty());
+        assertEquals(0, index.stats().get("grams"));
+    }
+
+    @Test
+    void resultsAreCopies() {
+        index.index(product(1, "螺丝", null));
+
+        index.search("螺丝", 1, 10).getItems().get(0).setName("changed");
+
+        assertEquals("螺丝", index.search("螺丝", 1, 10).getItems().get(0).getName());
+    }
+
+    @Test
+    void changesMadeWhileLoadingSurviveRebuild() {
+        index.index(product(1, "旧名称", null));
+        index.index(product(2, "要删除的螺丝", null));
+        when(productsRepository.findAll()).thenAnswer(invocation -> {
+            // 加载期间的单个更新，返回的是它们之前读到的数据
+            index.index(product(1, "新名称", null));
+            index.remove(2);
+            index.index(product(3, "新增螺丝", null));
+            return List.of(product(1, "旧名称", null), product(2, "要删除的螺丝", null), product(4, "库里的螺丝", null));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1), ids(index.search("新名称", 1, 10)));
+        assertTrue(index.search("旧名称", 1, 10).getItems().isEmpty());
+        assertEquals(List.of(3, 4), ids(index.search("螺丝", 1, 10)));
+        assertEquals(3, index.stats().get("documents"));
+    }
+
+    private static List<Integer> ids(ProductSearchResponse response) {
+        return response.getItems().stream().map(Products::getId).toList();
+    }
+
+    private static Products product(int id, String name, String description) {
+        Products product = new Products();
+        product.setId(id);
+        product.setSku("SKU-" + id);
+        product.setName(name);
+        product.setDescription(description);
+        return product;
+    }
+}
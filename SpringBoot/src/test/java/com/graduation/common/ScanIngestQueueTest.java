@@ -0,0 +1,176 @@
+package com.graduation.common;
+
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanResult;
+import com.graduation.dto.ScanTicket;
+import com.graduation.service.ScanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步扫码队列的受理、按操作员合并写库与结果拆分
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanIngestQueueTest {
+
+    @Mock
+    private ScanService scanService;
+
+    private final ScanTickets scanTickets = new ScanTickets();
+
+    private final ScanIngestQueue queue = new ScanIngestQueue();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(queue, "scanService", scanService);
+        ReflectionTestUtils.setField(queue, "batchLocks", new BatchLockStripes(4));
+        ReflectionTestUtils.setField(queue, "scanTickets", scanTickets);
+        ReflectionTestUtils.setField(queue, "queueCapacity", 10);
+        ReflectionTestUtils.setField(queue, "workerCount", 1);
+        ReflectionTestUtils.setField(queue, "batchMaxEntries", 500);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    void fullQueueRejectsAndDiscardsTicket() {
+        ReflectionTestUtils.setField(queue, "queueCapacity", 1);
+        ReflectionTestUtils.setField(queue, "workerCount", 0);
+        queue.start();
+
+        ScanTicket accepted = queue.submit(request(3, "a"));
+        ScanTicket rejected = queue.submit(request(3, "b"));
+
+        assertNotNull(accepted);
+        assertNull(rejected);
+        assertEquals(1, queue.getQueueSize());
+    }
+
+    @Test
+    void queuedTicketsOfOneUserAreMergedAndResultsSplitBack() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(scanService.scanBatch(any())).thenAnswer(invocation -> {
+            BatchScanRequest merged = invocation.getArgument(0);
+            firstStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return okResponse(merged);
+        });
+        queue.start();
+
+        ScanTicket first = queue.submit(request(3, "a"));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        // 工作线程正在处理第一张 ticket，后面两张在队列中等待，之后合并成一次写库
+        ScanTicket second = queue.submit(request(3, "b", "c"));
+        ScanTicket third = queue.submit(request(3, "d"));
+        release.countDown();
+
+        ArgumentCaptor<BatchScanRequest> requests = ArgumentCaptor.forClass(BatchScanRequest.class);
+        verify(scanService, timeout(2000).times(2)).scanBatch(requests.capture());
+        assertEquals(List.of("b", "c", "d"), scanIdsOf(requests.getAllValues().get(1)));
+        awaitDone(third);
+        assertEquals(ScanTicket.Status.DONE, first.getStatus());
+        assertEquals(2, second.getResult().getApplied());
+        assertEquals("c", second.getResult().getResults().get(1).getClientScanId());
+        assertEquals(1, second.getResult().getResults().get(1).getIndex());
+        assertEquals("d", third.getResult().getResults().get(0).getClientScanId());
+    }
+
+    @Test
+    void ticketsOfDifferentUsersAreWrittenSeparately() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(scanService.scanBatch(any())).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return okResponse(invocation.getArgument(0));
+        });
+        queue.start();
+
+        queue.submit(request(3, "a"));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        queue.submit(request(3, "b"));
+        ScanTicket other = queue.submit(request(4, "c"));
+        release.countDown();
+
+        awaitDone(other);
+        verify(scanService, times(3)).scanBatch(any());
+        assertEquals(ScanTicket.Status.DONE, other.getStatus());
+    }
+
+    @Test
+    void failedWriteMarksTicketFailed() throws Exception {
+        when(scanService.scanBatch(any())).thenThrow(new IllegalStateException("database down"));
+        queue.start();
+
+        ScanTicket ticket = queue.submit(request(3, "a"));
+
+        awaitDone(ticket);
+        assertEquals(ScanTicket.Status.FAILED, ticket.getStatus());
+        assertNull(ticket.getResult());
+    }
+
+    private static void awaitDone(ScanTicket ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (ticket.getCompletedAt() == null) {
+            assertTrue(System.nanoTime() < deadline, "ticket not completed within 2s");
+            Thread.sleep(10);
+        }
+    }
+
+    private static BatchScanRequest request(int userId, String... clientScanIds) {
+        BatchScanRequest request = new BatchScanRequest();
+        request.setUserId(userId);
+        request.setEntries(new ArrayList<>());
+        for (String clientScanId : clientScanIds) {
+            BatchScanRequest.Entry entry = new BatchScanRequest.Entry();
+            entry.setBatchCode("B001");
+            entry.setDelta(1);
+            entry.setClientScanId(clientScanId);
+            request.getEntries().add(entry);
+        }
+        return request;
+    }
+
+    private static BatchScanResponse okResponse(BatchScanRequest request) {
+        BatchScanResponse response = new BatchScanResponse();
+        for (BatchScanRequest.Entry entry : request.getEntries()) {
+            BatchScanResponse.Result result = new BatchScanResponse.Result();
+            result.setClientScanId(entry.getClientScanId());
+            result.setBatchCode(entry.getBatchCode());
+            result.setDelta(entry.getDelta());
+            result.setStatus(ScanResult.Status.OK);
+            response.getResults().add(result);
+        }
+        return response;
+    }
+
+    private static List<String> scanIdsOf(BatchScanRequest request) {
+        return request.getEntries().stream().map(BatchScanRequest.Entry::getClientScanId).toList();
+    }
+}
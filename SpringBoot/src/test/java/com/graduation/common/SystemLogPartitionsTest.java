@@ -0,0 +1,168 @@
+package com.graduation.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * system_logs 月分区的拆分与删除规则
+ */
+@ExtendWith(MockitoExtension.class)
+class SystemLogPartitionsTest {
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final YearMonth NOW = YearMonth.now();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    private final SystemLogPartitions partitions = new SystemLogPartitions();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(partitions, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(partitions, "monthsAhead", 3);
+        ReflectionTestUtils.setField(partitions, "retentionMonths", 0);
+        ReflectionTestUtils.setField(partitions, "lockWaitSeconds", 5);
+        lenient().when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        lenient().when(connection.createStatement()).thenReturn(statement);
+    }
+
+    @Test
+    void emptyMaxPartitionIsSplitUpToMonthsAhead() throws Exception {
+        existing(NOW.minusMonths(1), NOW);
+        maxPartitionHasRows(false);
+
+        partitions.maintain();
+
+        List<String> sql = executed();
+        assertEquals("SET SESSION lock_wait_timeout = 5", sql.get(0));
+        assertEquals("ALTER TABLE system_logs REORGANIZE PARTITION pmax INTO ("
+                + partition(NOW.plusMonths(1)) + ", " + partition(NOW.plusMonths(2)) + ", " + partition(NOW.plusMonths(3))
+                + ", PARTITION pmax VALUES LESS THAN MAXVALUE)", sql.get(1));
+        assertEquals("SET SESSION lock_wait_timeout = DEFAULT", sql.get(2));
+    }
+
+    @Test
+    void maxPartitionWithRowsIsNeverSplit() {
+        existing(NOW);
+        maxPartitionHasRows(true);
+
+        partitions.maintain();
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void nothingToDoWhenPartitionsAlreadyReachTarget() {
+        existing(NOW, NOW.plusMonths(1), NOW.plusMonths(2), NOW.plusMonths(3));
+
+        partitions.maintain();
+
+        verify(jdbcTemplate, never()).queryForList(startsWith("SELECT 1"), eq(Integer.class));
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void unpartitionedTableIsLeftAlone() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT PARTITION_NAME"), eq(String.class), eq("system_logs")))
+                .thenReturn(List.of());
+
+        partitions.maintain();
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void expiredMonthsAreDroppedButNewestMonthIsKept() throws Exception {
+        ReflectionTestUtils.setField(partitions, "retentionMonths", 2);
+        existing(NOW.minusMonths(4), NOW.minusMonths(3), NOW.minusMonths(2), NOW.minusMonths(1),
+                NOW, NOW.plusMonths(1), NOW.plusMonths(2), NOW.plusMonths(3));
+
+        partitions.maintain();
+
+        // 保留当月和上个月
+        assertEquals("ALTER TABLE system_logs DROP PARTITION " + NOW.minusMonths(4).format(NAME) + ", "
+                + NOW.minusMonths(3).format(NAME) + ", " + NOW.minusMonths(2).format(NAME), executed().get(1));
+    }
+
+    @Test
+    void onlyMonthPartitionIsNeverDropped() {
+        ReflectionTestUtils.setField(partitions, "retentionMonths", 1);
+        ReflectionTestUtils.setField(partitions, "monthsAhead", 0);
+        existing(NOW.minusMonths(6));
+        maxPartitionHasRows(true);
+
+        partitions.maintain();
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void ddlFailureIsSwallowedUntilNextCheck() {
+        existing(NOW);
+        maxPartitionHasRows(false);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        assertDoesNotThrow(partitions::maintain);
+    }
+
+    private void existing(YearMonth... months) {
+        List<String> names = new ArrayList<>();
+        for (YearMonth month : months) {
+            names.add(month.format(NAME));
+        }
+        names.add("pmax");
+        when(jdbcTemplate.queryForList(startsWith("SELECT PARTITION_NAME"), eq(String.class), eq("system_logs")))
+                .thenReturn(names);
+    }
+
+    private void maxPartitionHasRows(boolean hasRows) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT 1 FROM system_logs PARTITION (pmax)"), eq(Integer.class)))
+                .thenReturn(hasRows ? List.of(1) : List.of());
+    }
+
+    private List<String> executed() throws Exception {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement, atLeastOnce()).execute(sql.capture());
+        return sql.getAllValues();
+    }
+
+    private static String partition(YearMonth month) {
+        return "PARTITION " + month.format(NAME) + " VALUES LESS THAN (UNIX_TIMESTAMP('"
+                + month.plusMonths(1).atDay(1) + " 00:00:00'))";
+    }
+}
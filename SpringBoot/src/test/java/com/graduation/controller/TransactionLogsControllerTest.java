@@ -0,0 +1,186 @@
+package com.graduation.controller;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.graduation.common.EntityVersions;
+import com.graduation.dto.CursorPage;
+import com.graduation.dto.LedgerEntry;
+import com.graduation.entity.TransactionLogs;
+import com.graduation.service.TransactionLogsService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异动日志的条件搜索和按批次游标分页
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionLogsControllerTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), TransactionLogs.class);
+    }
+
+    @Mock
+    private TransactionLogsService service;
+
+    private final TransactionLogsController controller = new TransactionLogsController();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "entityVersions", new EntityVersions());
+        ReflectionTestUtils.setField(controller, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(controller, "maxPageSize", 200);
+        lenient().when(service.getEntityClass()).thenReturn(TransactionLogs.class);
+    }
+
+    @Test
+    void searchPutsEveryFilterIntoOneQuery() {
+        when(service.list(any(Wrapper.class))).thenReturn(new ArrayList<>());
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 11, 1, 0, 0);
+
+        controller.search("出库", 3, null, 7, from, to, "desc", null, 20, request());
+
+        QueryWrapper<TransactionLogs> wrapper = capturedWrapper();
+        String sql = sql(wrapper);
+        assertTrue(sql.contains("type=") && sql.contains("user_id="), sql);
+        assertTrue(sql.contains("created_at>=") && sql.contains("created_at<"), sql);
+        assertTrue(sql.contains("inventory_idIN(SELECTidFROMinventoryWHEREproduct_id=7)"), sql);
+        assertTrue(sql.endsWith("ORDERBYcreated_atDESC,idDESCLIMIT21"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().containsValue("出库"));
+        assertTrue(wrapper.getParamNameValuePairs().containsValue(from));
+    }
+
+    @Test
+    void searchRejectsEmptyTimeRangeWithoutQuerying() {
+        LocalDateTime at = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+        ResponseEntity<?> response = controller.search(null, null, null, null, at, at, "desc", null, null, request());
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(service, never()).list(any(Wrapper.class));
+    }
+
+    @Test
+    void searchReturnsCursorOnlyWhenThereIsAnotherPage() {
+        when(service.list(any(Wrapper.class))).thenReturn(logs(3), logs(2));
+
+        CursorPage<?> full = (CursorPage<?>) controller.search(null, null, null, null, null, null, "desc", null, 2, request()).getBody();
+        CursorPage<?> last = (CursorPage<?>) controller.search(null, null, null, null, null, null, "desc", null, 2, request()).getBody();
+
+        assertEquals(2, full.getItems().size());
+        assertNotNull(full.getNextCursor());
+        assertEquals(2, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void inventoryHistoryPagesByIdNewestFirst() {
+        when(service.list(any(Wrapper.class))).thenReturn(logs(51));
+
+        CursorPage<?> page = (CursorPage<?>) controller.listByInventoryId(12, null, null, false, request()).getBody();
+
+        String sql = sql(capturedWrapper());
+        assertTrue(sql.startsWith("(inventory_id="), sql);
+        assertTrue(sql.endsWith("ORDERBYidDESCLIMIT51"), sql);
+        assertEquals(50, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void nextInventoryPageContinuesAfterCursor() {
+        when(service.list(any(Wrapper.class))).thenReturn(logs(3), logs(1));
+        CursorPage<?> first = (CursorPage<?>) controller.listByInventoryId(12, null, 2, false, request()).getBody();
+
+        controller.listByInventoryId(12, first.getNextCursor(), 2, false, request());
+
+        ArgumentCaptor<QueryWrapper<TransactionLogs>> wrappers = wrapperCaptor();
+        verify(service, times(2)).list(wrappers.capture());
+        QueryWrapper<TransactionLogs> second = wrappers.getAllValues().get(1);
+        assertTrue(sql(second).contains("id<"), sql(second));
+        assertTrue(second.getParamNameValuePairs().containsValue(2L));
+    }
+
+    @Test
+    void compactHistorySelectsAndReturnsOnlyDeltaAndBalance() {
+        when(service.list(any(Wrapper.class))).thenReturn(logs(1));
+
+        CursorPage<?> page = (CursorPage<?>) controller.listByInventoryId(12, null, 10, true, request()).getBody();
+
+        assertEquals("id,quantity_change,quantity_after_transaction,created_at", capturedWrapper().getSqlSelect());
+        LedgerEntry entry = (LedgerEntry) page.getItems().get(0);
+        assertEquals(1L, entry.getId());
+        assertEquals(-1, entry.getDelta());
+        assertEquals(9, entry.getBalance());
+    }
+
+    private QueryWrapper<TransactionLogs> capturedWrapper() {
+        ArgumentCaptor<QueryWrapper<TransactionLogs>> wrapper = wrapperCaptor();
+        verify(service).list(wrapper.capture());
+        return wrapper.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<QueryWrapper<TransactionLogs>> wrapperCaptor() {
+        return ArgumentCaptor.forClass((Class<QueryWrapper<TransactionLogs>>) (Class<?>) QueryWrapper.class);
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/transaction-logs"), new MockHttpServletResponse());
+    }
+
+    /**
+     * id 从 1 开始递增的 count 行
+     */
+    private static List<TransactionLogs> logs(int count) {
+        List<TransactionLogs> logs = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            TransactionLogs log = new TransactionLogs();
+            log.setId(id);
+            log.setInventoryId(12);
+            log.setType("出库");
+            log.setQuantityChange(-1);
+            log.setQuantityAfterTransaction(10 - (int) id);
+            log.setCreatedAt(LocalDateTime.of(2026, 10, 1, 8, 0).plusMinutes(id));
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    /**
+     * 去掉空白后的条件片段，便于断言，不依赖 MyBatis-Plus 拼接时的空格
+     */
+    private static String sql(QueryWrapper<?> wrapper) {
+        return wrapper.getSqlSegment().replaceAll("#\\{[^}]*}", "").replaceAll("\\s+", "");
+    }
+}
@@ -0,0 +1,91 @@
+package com.graduation.service.impl;
+
+import com.graduation.common.JpaCacheRegions;
+import com.graduation.common.PrefixIndex;
+import com.graduation.common.ProductCache;
+import com.graduation.common.ProductSearchIndex;
+import com.graduation.common.SuggestIndexes;
+import com.graduation.entity.Products;
+import com.graduation.mapper.ProductsMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 产品增删改后的缓存失效与前缀索引、全文索引维护
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductsServiceImplTest {
+
+    @Mock
+    private ProductsMapper productsMapper;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private JpaCacheRegions jpaCacheRegions;
+
+    @Mock
+    private SuggestIndexes suggestIndexes;
+
+    @Mock
+    private PrefixIndex skus;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @InjectMocks
+    private ProductsServiceImpl productsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productsService, "baseMapper", productsMapper);
+        when(suggestIndexes.skus()).thenReturn(skus);
+    }
+
+    @Test
+    void saveOrUpdateOfNewProductIndexesIt() {
+        Products product = product(null, "SKU-1");
+        when(productsMapper.insert(product)).thenAnswer(invocation -> {
+            product.setId(5);
+            return 1;
+        });
+
+        assertTrue(productsService.saveOrUpdate(product));
+
+        verify(productCache).invalidate(5);
+        verify(skus).add("SKU-1");
+        verify(productSearchIndex).index(product);
+    }
+
+    @Test
+    void saveOrUpdateOfExistingProductReplacesItsSku() {
+        Products stored = product(5, "SKU-1");
+        Products updated = product(5, "SKU-2");
+        when(productsMapper.selectById(5)).thenReturn(stored, stored, updated);
+        when(productsMapper.updateById(updated)).thenReturn(1);
+
+        assertTrue(productsService.saveOrUpdate(updated));
+
+        verify(productCache).invalidate(5);
+        verify(skus).replace("SKU-1", "SKU-2");
+        verify(productSearchIndex).index(updated);
+    }
+
+    private static Products product(Integer id, String sku) {
+        Products product = new Products();
+        product.setId(id);
+        product.setSku(sku);
+        product.setName("name");
+        return product;
+    }
+}
@@ -0,0 +1,364 @@
+package com.graduation.service.impl;
+
+import com.graduation.common.EntityVersions;
+import com.graduation.common.HotBatchCounters;
+import com.graduation.common.InventoryBatchIndex;
+import com.graduation.common.LedgerWriter;
+import com.graduation.common.ProductCache;
+import com.graduation.common.ScanIdempotencyCache;
+import com.graduation.common.ScanReceipts;
+import com.graduation.dto.BatchScanRequest;
+import com.graduation.dto.BatchScanResponse;
+import com.graduation.dto.ScanResult;
+import com.graduation.entity.Inventory;
+import com.graduation.entity.TransactionLogs;
+import com.graduation.repository.InventoryRepository;
+import com.graduation.repository.TransactionLogsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 扫码服务: 批量扫码的逐条结果、库存不足时不生效、按 clientScanId 幂等以及合并窗口
+ */
+@ExtendWith(MockitoExtension.class)
+class ScanServiceImplTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private TransactionLogsRepository transactionLogsRepository;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ScanIdempotencyCache idempotencyCache = new ScanIdempotencyCache(100);
+
+    @Mock
+    private LedgerWriter ledgerWriter;
+
+    @Mock
+    private HotBatchCounters hotBatchCounters;
+
+    @Mock
+    private InventoryBatchIndex inventoryBatchIndex;
+
+    @Mock
+    private EntityVersions entityVersions;
+
+    @Mock
+    private ScanReceipts scanReceipts;
+
+    @InjectMocks
+    private ScanServiceImpl scanService;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void insufficientStockEntryIsNotAppliedAndLaterEntriesSeeUnchangedQuantity() {
+        lockInventories(inventory(1, "B1", 3));
+
+        BatchScanResponse response = scanService.scanBatch(request(
+                entry("B1", -5, "s1"),
+                entry("B1", -2, "s2"),
+                entry("NOPE", 1, "s3")));
+
+        BatchScanResponse.Result insufficient = response.getResults().get(0);
+        assertEquals(ScanResult.Status.INSUFFICIENT_STOCK, insufficient.getStatus());
+        assertEquals(3, insufficient.getQuantityAfter());
+        assertEquals(ScanResult.Status.OK, response.getResults().get(1).getStatus());
+        assertEquals(1, response.getResults().get(1).getQuantityAfter());
+        assertEquals(ScanResult.Status.NOT_FOUND, response.getResults().get(2).getStatus());
+        assertEquals(1, response.getApplied());
+        assertEquals(2, response.getFailed());
+
+        assertEquals(List.of(List.of(1, 1)), updatedRows());
+        List<TransactionLogs> logs = writtenLogs();
+        assertEquals(1, logs.size());
+        assertEquals("s2", logs.get(0).getClientScanId());
+        assertEquals(-2, logs.get(0).getQuantityChange());
+        // 失败的扫码ID没有被记为已处理，客户端可以用同一个ID重试
+        assertNull(idempotencyCache.get("s1"));
+    }
+
+    @Test
+    void quantitiesAreWrittenBackInInventoryIdOrder() {
+        lockInventories(inventory(1, "A", 0), inventory(2, "B", 0));
+
+        scanService.scanBatch(request(entry("B", 4, null), entry("A", 1, null), entry("B", 1, null)));
+
+        assertEquals(List.of(List.of(1, 1), List.of(5, 2)), updatedRows());
+    }
+
+    @Test
+    void invalidEntriesAreReportedWithoutLockingAnyRow() {
+        BatchScanResponse response = scanService.scanBatch(request(entry(" ", 1, null), entry("B1", 0, null)));
+
+        assertEquals(ScanResult.Status.INVALID, response.getResults().get(0).getStatus());
+        assertEquals(ScanResult.Status.INVALID, response.getResults().get(1).getStatus());
+        assertEquals(2, response.getFailed());
+        assertTrue(response.getResults().stream().noneMatch(BatchScanResponse.Result::isDuplicate));
+        verify(inventoryRepository, never()).lockAllByIdIn(anyCollection());
+        verify(ledgerWriter, never()).writeAll(anyList());
+    }
+
+    @Test
+    void repeatedIdWithinOneBatchIsAppliedOnceAndCopiesTheFirstOutcome() {
+        lockInventories(inventory(1, "B1", 1));
+
+        BatchScanResponse response = scanService.scanBatch(request(
+                entry("B1", 2, "s1"), entry("B1", 2, "s1"),
+                entry("B1", -9, "s2"), entry("B1", -9, "s2")));
+
+        assertEquals(1, response.getApplied());
+        BatchScanResponse.Result repeat = response.getResults().get(1);
+        assertTrue(repeat.isDuplicate());
+        assertEquals(ScanResult.Status.OK, repeat.getStatus());
+        assertEquals(3, repeat.getQuantityAfter());
+        assertEquals(ScanResult.Status.INSUFFICIENT_STOCK, response.getResults().get(3).getStatus());
+        assertEquals(List.of(List.of(3, 1)), updatedRows());
+    }
+
+    @Test
+    void rolledBackBatchReleasesScanIdsForRetry() {
+        TransactionSynchronizationManager.initSynchronization();
+        lockInventories(inventory(1, "B1", 3));
+        doThrow(new IllegalStateException("ledger down")).when(ledgerWriter).writeAll(anyList());
+
+        assertThrows(IllegalStateException.class, () -> scanService.scanBatch(request(entry("B1", -1, "s1"))));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNull(idempotencyCache.get("s1"));
+        assertTrue(idempotencyCache.reserveForTransaction("s1"));
+    }
+
+    @Test
+    void committedBatchRemembersScanIds() {
+        TransactionSynchronizationManager.initSynchronization();
+        lockInventories(inventory(1, "B1", 3));
+
+        scanService.scanBatch(request(entry("B1", -1, "s1")));
+        assertNull(idempotencyCache.get("s1"));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(2, idempotencyCache.get("s1").getQuantityAfterTransaction());
+    }
+
+    @Test
+    void replayedClientScanIdIsReportedAsDuplicateWithoutWriting() {
+        when(transactionLogsRepository.findByClientScanIdIn(anyCollection())).thenReturn(List.of(log(1, "s1", 7)));
+
+        BatchScanResponse response = scanService.scanBatch(request(entry("B1", 1, "s1")));
+
+        BatchScanResponse.Result result = response.getResults().get(0);
+        assertTrue(result.isDuplicate());
+        assertEquals(ScanResult.Status.OK, result.getStatus());
+        assertEquals(7, result.getQuantityAfter());
+        assertEquals(1, response.getDuplicates());
+        assertEquals(0, response.getApplied());
+        verify(inventoryRepository, never()).lockAllByIdIn(anyCollection());
+        verify(ledgerWriter, never()).writeAll(anyList());
+        // 之后的重复提交直接命中内存缓存
+        assertEquals(7, idempotencyCache.get("s1").getQuantityAfterTransaction());
+    }
+
+    @Test
+    void singleScanReplayReturnsFirstResult() {
+        when(transactionLogsRepository.findByClientScanIdIn(anyCollection())).thenReturn(List.of(log(1, "s1", 7)));
+        when(inventoryRepository.findById(1)).thenReturn(Optional.of(inventory(1, "B1", 7)));
+
+        ScanResult result = scanService.scan("B1", 3, 1, "扫码入库", "s1");
+
+        assertTrue(result.isDuplicate());
+        assertEquals(7, result.getTransactionLog().getQuantityAfterTransaction());
+        verify(inventoryRepository, never()).adjustQuantityByBatchCode(anyString(), anyInt());
+        verify(ledgerWriter, never()).write(any());
+    }
+
+    @Test
+    void scanIdInFlightInAnotherTransactionIsPending() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(idempotencyCache.reserveForTransaction("s1"));
+
+        ScanResult result = scanService.scan("B1", 3, 1, "扫码入库", "s1");
+
+        assertEquals(ScanResult.Status.PENDING, result.getStatus());
+        assertTrue(result.isDuplicate());
+        verify(inventoryRepository, never()).adjustQuantityByBatchCode(anyString(), anyInt());
+    }
+
+    @Test
+    void scanIdRecordedInCoalescedWindowIsDuplicate() {
+        when(scanReceipts.findWindowScanIds(anyCollection())).thenReturn(Map.of("s1", "window:w1"));
+        when(transactionLogsRepository.findByClientScanIdIn(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(log(1, "window:w1", 9)));
+
+        ScanResult result = scanService.findApplied("s1");
+
+        assertTrue(result.isDuplicate());
+        assertEquals(ScanResult.Status.OK, result.getStatus());
+        assertEquals(9, result.getTransactionLog().getQuantityAfterTransaction());
+    }
+
+    @Test
+    void receiptWhoseWindowLogIsNotWrittenYetIsPending() {
+        when(scanReceipts.findWindowScanIds(anyCollection())).thenReturn(Map.of("s1", "window:w1"));
+
+        ScanResult single = scanService.findApplied("s1");
+        BatchScanResponse batch = scanService.scanBatch(request(entry("B1", 1, "s1")));
+
+        assertEquals(ScanResult.Status.PENDING, single.getStatus());
+        assertTrue(single.isDuplicate());
+        assertNull(single.getTransactionLog());
+        BatchScanResponse.Result result = batch.getResults().get(0);
+        assertEquals(ScanResult.Status.PENDING, result.getStatus());
+        assertTrue(result.isDuplicate());
+        assertNull(result.getQuantityAfter());
+        assertEquals(0, batch.getApplied());
+        // 没有结果可以缓存，日志写库后再查询时返回真实结果
+        assertNull(idempotencyCache.get("s1"));
+        verify(inventoryRepository, never()).lockAllByIdIn(anyCollection());
+    }
+
+    @Test
+    void coalescedWindowExcludesAppliedIdsAndRecordsTheRest() {
+        when(transactionLogsRepository.findByClientScanIdIn(anyCollection())).thenReturn(List.of(log(1, "s1", 5)));
+        when(inventoryRepository.adjustQuantityByBatchCode("B1", 3)).thenReturn(1);
+        when(inventoryRepository.findByBatchCode("B1")).thenReturn(Optional.of(inventory(1, "B1", 8)));
+        when(ledgerWriter.write(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchScanResponse response = scanService.scanCoalesced(3, "B1",
+                List.of(entry("B1", 1, "s1"), entry("B1", 1, "s2"), entry("B1", 2, "s3")));
+
+        assertTrue(response.getResults().get(0).isDuplicate());
+        assertEquals(5, response.getResults().get(0).getQuantityAfter());
+        assertEquals(2, response.getApplied());
+        assertEquals(8, response.getResults().get(2).getQuantityAfter());
+
+        ArgumentCaptor<TransactionLogs> logCaptor = ArgumentCaptor.forClass(TransactionLogs.class);
+        verify(ledgerWriter).write(logCaptor.capture());
+        String windowScanId = logCaptor.getValue().getClientScanId();
+        assertTrue(windowScanId.startsWith("window:"));
+        assertEquals(3, logCaptor.getValue().getQuantityChange());
+        verify(scanReceipts).insert(List.of("s2", "s3"), windowScanId);
+    }
+
+    @Test
+    void insufficientCoalescedWindowRecordsNoReceipts() {
+        when(inventoryRepository.adjustQuantityByBatchCode("B1", -3)).thenReturn(0);
+        when(inventoryRepository.findByBatchCode("B1")).thenReturn(Optional.of(inventory(1, "B1", 2)));
+
+        BatchScanResponse response = scanService.scanCoalesced(3, "B1",
+                List.of(entry("B1", -1, "s1"), entry("B1", -2, "s2")));
+
+        assertEquals(2, response.getFailed());
+        assertEquals(ScanResult.Status.INSUFFICIENT_STOCK, response.getResults().get(1).getStatus());
+        assertNull(response.getResults().get(1).getQuantityAfter());
+        verify(scanReceipts, never()).insert(anyCollection(), anyString());
+        assertNull(idempotencyCache.get("s1"));
+    }
+
+    private void lockInventories(Inventory... inventories) {
+        List<Integer> ids = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            ids.add(inventory.getId());
+        }
+        when(inventoryRepository.findIdsByBatchCodeIn(anyCollection())).thenReturn(ids);
+        when(inventoryRepository.lockAllByIdIn(ids)).thenReturn(List.of(inventories));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> updatedRows() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        List<List<Object>> result = new ArrayList<>();
+        for (Object[] row : rows.getValue()) {
+            result.add(List.of(row));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TransactionLogs> writtenLogs() {
+        ArgumentCaptor<List<TransactionLogs>> logs = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter).writeAll(logs.capture());
+        return logs.getValue();
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static BatchScanRequest request(BatchScanRequest.Entry... entries) {
+        BatchScanRequest request = new BatchScanRequest();
+        request.setUserId(3);
+        request.setEntries(List.of(entries));
+        return request;
+    }
+
+    private static BatchScanRequest.Entry entry(String batchCode, int delta, String clientScanId) {
+        BatchScanRequest.Entry entry = new BatchScanRequest.Entry();
+        entry.setBatchCode(batchCode);
+        entry.setDelta(delta);
+        entry.setClientScanId(clientScanId);
+        return entry;
+    }
+
+    private static Inventory inventory(int id, String batchCode, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setBatchCode(batchCode);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+
+    private static TransactionLogs log(int inventoryId, String clientScanId, int quantityAfter) {
+        TransactionLogs log = new TransactionLogs();
+        log.setInventoryId(inventoryId);
+        log.setClientScanId(clientScanId);
+        log.setQuantityAfterTransaction(quantityAfter);
+        return log;
+    }
+}
@@ -68,6 +68,10 @@ const api = {
         list() {
             return apiClient.get('/users/list');
         },
+        // 按 ID 批量查询，返回 { items, missingIds }；fields 可选，例如 'id,name'
+        byIds(ids, fields) {
+            return apiClient.post('/users/by-ids', ids, { params: fields ? { fields } : {} });
+        },
         update(data) {
             return apiClient.put('/users', data);
         },
@@ -87,6 +91,10 @@ const api = {
         list() {
             return apiClient.get('/products/list');
         },
+        // 按 ID 批量查询，返回 { items, missingIds }；fields 可选，例如 'id,name'
+        byIds(ids, fields) {
+            return apiClient.post('/products/by-ids', ids, { params: fields ? { fields } : {} });
+        },
         update(data) {
             return apiClient.put('/products', data);
         },
@@ -143,6 +151,10 @@ const api = {
         list() {
             return apiClient.get('/inventory/list');
         },
+        // 按 ID 批量查询，返回 { items, missingIds }；fields 可选，例如 'id,name'
+        byIds(ids, fields) {
+            return apiClient.post('/inventory/by-ids', ids, { params: fields ? { fields } : {} });
+        },
         update(data) {
             return apiClient.put('/inventory', data);
         },
@@ -156,11 +168,16 @@ const api = {
         create(data) {
             return apiClient.post('/transaction-logs', data);
         },
-        listByInventoryId(inventoryId) {
-            return apiClient.get(`/transaction-logs/inventory/${inventoryId}`);
+        // 批次流水，游标分页: { cursor, size, compact }
+        listByInventoryId(inventoryId, params) {
+            return apiClient.get(`/transaction-logs/inventory/${inventoryId}`, { params });
         },
         list() {
             return apiClient.get('/transaction-logs/list');
+        },
+        // 服务端过滤 + 游标分页: { type, userId, inventoryId, productId, from, to, order, cursor, size }
+        search(params) {
+            return apiClient.get('/transaction-logs/search', { params });
         }
     },
 
@@ -168,6 +185,10 @@ const api = {
     systemLogsApi: {
         list() {
             return apiClient.get('/system-logs/list');
+        },
+        // 按时间范围游标分页: { from, to, action, operatorId, cursor, size }
+        search(params) {
+            return apiClient.get('/system-logs/search', { params });
         }
     }
 };
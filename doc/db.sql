@@ -113,10 +113,27 @@ CREATE TABLE `transaction_logs` (
   `quantity_change` INT NOT NULL COMMENT '库存变化数量 (+表示入库, -表示出库)',
   `quantity_after_transaction` INT NOT NULL COMMENT '本次异动后, 批次的库存数量',
   `notes` VARCHAR(255) COMMENT '可选备注, 例如: 盘点调整原因',
+  `client_scan_id` VARCHAR(64) NULL COMMENT '客户端扫码ID (幂等键)',
   `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-  KEY `idx_inventory_id` (`inventory_id`),
-  KEY `idx_user_id` (`user_id`),
+  UNIQUE KEY `uk_client_scan_id` (`client_scan_id`),
+  KEY `idx_inventory_id` (`inventory_id`, `id`),
+  KEY `idx_inventory_created_at` (`inventory_id`, `created_at`),
+  KEY `idx_user_created_at` (`user_id`, `created_at`),
+  KEY `idx_type_created_at` (`type`, `created_at`),
+  KEY `idx_created_at` (`created_at`),
   CONSTRAINT `fk_logs_inventory` FOREIGN KEY (`inventory_id`) REFERENCES `inventory` (`id`) ON DELETE RESTRICT,
   CONSTRAINT `fk_logs_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE RESTRICT
 ) COMMENT='库存异动日志表';
 
+-- =============================================
+-- 8. 扫码回执表
+-- 合并扫码把一个窗口内的多次扫码写成一条异动日志 (client_scan_id 为窗口ID)，
+-- 窗口内每一次扫码的 clientScanId 记录在这里，用于重复提交的判断。
+
+-- =============================================
+CREATE TABLE `scan_receipts` (
+  `client_scan_id` VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '客户端扫码ID (幂等键)',
+  `window_scan_id` VARCHAR(64) NOT NULL COMMENT '合并窗口ID, 即 transaction_logs.client_scan_id',
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  KEY `idx_window_scan_id` (`window_scan_id`)
+) COMMENT='合并扫码的扫码ID回执表';
@@ -154,9 +154,39 @@ INSERT INTO `roles` VALUES (2, '仓库管理员');
 INSERT INTO `roles` VALUES (3, '操作员');
 INSERT INTO `roles` VALUES (1, '系统管理员');
 
+-- ----------------------------
+-- Table structure for scan_receipts
+-- ----------------------------
+-- 合并扫码 (ScanCoalescer) 把一个窗口内的多次扫码写成一条异动日志，日志的 client_scan_id 是窗口ID；
+-- 窗口内每一次扫码的 clientScanId 都记录在这里，与库存更新在同一个事务中写入。
+-- 按旧版本建立的库由应用启动时执行的 SpringBoot/src/main/resources/db/migrations.sql 补建这张表。
+DROP TABLE IF EXISTS `scan_receipts`;
+CREATE TABLE `scan_receipts`  (
+  `client_scan_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '客户端扫码ID (幂等键)',
+  `window_scan_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '合并窗口ID, 即 transaction_logs.client_scan_id',
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`client_scan_id`) USING BTREE,
+  INDEX `idx_window_scan_id`(`window_scan_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '合并扫码的扫码ID回执表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for system_logs
 -- ----------------------------
+-- 按月 RANGE 分区，分区由应用的 SystemLogPartitions 定时任务提前创建、按保留期删除。
+-- 分区已建到当前月份之后 (p202701)，pmax 保持为空，定时任务拆分 pmax 时只修改元数据。
+-- 分区表的每个唯一键都必须包含分区列，所以主键为 (id, created_at)。
+-- 已按旧版本建表 (分区只到 p202603，之后的数据都在 pmax 中) 的库，需要在维护窗口中拆分一次 pmax，
+-- 这条语句会复制 pmax 中的全部数据并在期间锁表:
+--   ALTER TABLE `system_logs` REORGANIZE PARTITION pmax INTO (
+--     PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+--     ... (每月一个分区，直到当前月份之后)
+--     PARTITION pmax VALUES LESS THAN MAXVALUE);
+-- 已有的未分区表迁移 (pmax 之前的月份按需补齐，最后一个月份分区要在当前月份之后):
+--   ALTER TABLE `system_logs` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `created_at`);
+--   ALTER TABLE `system_logs` PARTITION BY RANGE (UNIX_TIMESTAMP(`created_at`)) (
+--     PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+--     PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+--     PARTITION pmax VALUES LESS THAN MAXVALUE);
 DROP TABLE IF EXISTS `system_logs`;
 CREATE TABLE `system_logs`  (
   `id` bigint UNSIGNED NOT NULL AUTO_INCREMENT,
@@ -167,8 +197,26 @@ CREATE TABLE `system_logs`  (
   `details` text CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL COMMENT '详细描述或JSON数据',
   `ip_address` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '操作者IP',
   `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
-  PRIMARY KEY (`id`) USING BTREE
-) ENGINE = InnoDB AUTO_INCREMENT = 4 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '系统关键操作日志表' ROW_FORMAT = Dynamic;
+  PRIMARY KEY (`id`, `created_at`) USING BTREE,
+  INDEX `idx_created_at`(`created_at` ASC) USING BTREE COMMENT '按 (created_at, id) 游标分页，二级索引已隐含主键'
+) ENGINE = InnoDB AUTO_INCREMENT = 4 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '系统关键操作日志表' ROW_FORMAT = Dynamic
+PARTITION BY RANGE (UNIX_TIMESTAMP(`created_at`)) (
+  PARTITION p202512 VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+  PARTITION p202601 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+  PARTITION p202602 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+  PARTITION p202603 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+  PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+  PARTITION p202605 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+  PARTITION p202606 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+  PARTITION p202607 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+  PARTITION p202608 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+  PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+  PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+  PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+  PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+  PARTITION p202701 VALUES LESS THAN (UNIX_TIMESTAMP('2027-02-01 00:00:00')),
+  PARTITION pmax VALUES LESS THAN MAXVALUE
+);
 
 -- ----------------------------
 -- Records of system_logs
@@ -180,6 +228,13 @@ INSERT INTO `system_logs` VALUES (3, 9, 'admin', 'DELETE_USER', '9', '删除了
 -- ----------------------------
 -- Table structure for transaction_logs
 -- ----------------------------
+-- 按旧版本建立的库: client_scan_id 列和 uk_client_scan_id 由 JPA (ddl-auto=update) 补齐，查询用的索引需要手动添加:
+--   ALTER TABLE `transaction_logs` DROP INDEX `idx_inventory_id`, DROP INDEX `idx_user_id`,
+--     ADD INDEX `idx_inventory_id`(`inventory_id`, `id`),
+--     ADD INDEX `idx_inventory_created_at`(`inventory_id`, `created_at`),
+--     ADD INDEX `idx_user_created_at`(`user_id`, `created_at`),
+--     ADD INDEX `idx_type_created_at`(`type`, `created_at`),
+--     ADD INDEX `idx_created_at`(`created_at`);
 DROP TABLE IF EXISTS `transaction_logs`;
 CREATE TABLE `transaction_logs`  (
   `id` bigint UNSIGNED NOT NULL AUTO_INCREMENT,
@@ -189,10 +244,15 @@ CREATE TABLE `transaction_logs`  (
   `quantity_change` int NOT NULL COMMENT '库存变化数量 (+表示入库, -表示出库)',
   `quantity_after_transaction` int NOT NULL COMMENT '本次异动后, 批次的库存数量',
   `notes` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '可选备注, 例如: 盘点调整原因',
+  `client_scan_id` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '客户端扫码ID (幂等键)',
   `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_inventory_id`(`inventory_id` ASC) USING BTREE,
-  INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
+  UNIQUE INDEX `uk_client_scan_id`(`client_scan_id` ASC) USING BTREE,
+  INDEX `idx_inventory_id`(`inventory_id` ASC, `id` ASC) USING BTREE COMMENT '单个批次的流水按 id 游标分页',
+  INDEX `idx_inventory_created_at`(`inventory_id` ASC, `created_at` ASC) USING BTREE COMMENT '按批次查询并按时间排序/翻页，同时覆盖外键 fk_logs_inventory',
+  INDEX `idx_user_created_at`(`user_id` ASC, `created_at` ASC) USING BTREE COMMENT '按操作员查询并按时间排序/翻页，同时覆盖外键 fk_logs_user',
+  INDEX `idx_type_created_at`(`type` ASC, `created_at` ASC) USING BTREE COMMENT '按异动类型 (入库/出库) 查询并按时间排序/翻页',
+  INDEX `idx_created_at`(`created_at` ASC) USING BTREE COMMENT '按 (created_at, id) 游标分页，二级索引已隐含主键',
   CONSTRAINT `fk_logs_inventory` FOREIGN KEY (`inventory_id`) REFERENCES `inventory` (`id`) ON DELETE RESTRICT ON UPDATE RESTRICT,
   CONSTRAINT `fk_logs_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 16 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '库存异动日志表' ROW_FORMAT = Dynamic;
@@ -200,19 +260,19 @@ CREATE TABLE `transaction_logs`  (
 -- ----------------------------
 -- Records of transaction_logs
 -- ----------------------------
-INSERT INTO `transaction_logs` VALUES (1, 1001, 3, '入库', 200, 200, '初始入库', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (2, 1002, 3, '入库', 150, 150, '初始入库', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (3, 1003, 4, '入库', 300, 300, '初始入库', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (4, 1004, 3, '入库', 100, 100, '初始入库', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (5, 1005, 4, '入库', 120, 120, '初始入库', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (7, 1002, 3, '盘点', -1, 149, '盘点时发现一个包装破损', '2025-10-12 10:28:40');
-INSERT INTO `transaction_logs` VALUES (8, 1001, 6, '入库', 1, 201, '扫码入库', '2025-10-29 18:58:55');
-INSERT INTO `transaction_logs` VALUES (9, 1001, 6, '入库', 1, 202, '扫码入库', '2025-10-29 18:59:33');
-INSERT INTO `transaction_logs` VALUES (11, 1001, 6, '入库', 1, 202, '扫码入库', '2025-11-07 22:13:44');
-INSERT INTO `transaction_logs` VALUES (12, 1001, 3, '出库', -10, 192, '领用', '2025-11-07 23:05:17');
-INSERT INTO `transaction_logs` VALUES (13, 1001, 3, '出库', -10, 182, '你你你', '2025-11-07 23:06:02');
-INSERT INTO `transaction_logs` VALUES (14, 1002, 1, '出库', -20, 129, '11', '2025-11-07 23:06:25');
-INSERT INTO `transaction_logs` VALUES (15, 1001, 1, '出库', -20, 162, '风格恢复', '2025-11-07 23:16:42');
+INSERT INTO `transaction_logs` VALUES (1, 1001, 3, '入库', 200, 200, '初始入库', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (2, 1002, 3, '入库', 150, 150, '初始入库', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (3, 1003, 4, '入库', 300, 300, '初始入库', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (4, 1004, 3, '入库', 100, 100, '初始入库', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (5, 1005, 4, '入库', 120, 120, '初始入库', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (7, 1002, 3, '盘点', -1, 149, '盘点时发现一个包装破损', NULL, '2025-10-12 10:28:40');
+INSERT INTO `transaction_logs` VALUES (8, 1001, 6, '入库', 1, 201, '扫码入库', NULL, '2025-10-29 18:58:55');
+INSERT INTO `transaction_logs` VALUES (9, 1001, 6, '入库', 1, 202, '扫码入库', NULL, '2025-10-29 18:59:33');
+INSERT INTO `transaction_logs` VALUES (11, 1001, 6, '入库', 1, 202, '扫码入库', NULL, '2025-11-07 22:13:44');
+INSERT INTO `transaction_logs` VALUES (12, 1001, 3, '出库', -10, 192, '领用', NULL, '2025-11-07 23:05:17');
+INSERT INTO `transaction_logs` VALUES (13, 1001, 3, '出库', -10, 182, '你你你', NULL, '2025-11-07 23:06:02');
+INSERT INTO `transaction_logs` VALUES (14, 1002, 1, '出库', -20, 129, '11', NULL, '2025-11-07 23:06:25');
+INSERT INTO `transaction_logs` VALUES (15, 1001, 1, '出库', -20, 162, '风格恢复', NULL, '2025-11-07 23:16:42');
 
 -- ----------------------------
 -- Table structure for users